@@ -4,13 +4,13 @@ import graphdivider.model.*;
 import graphdivider.view.Theme;
 import graphdivider.view.Language;
 import graphdivider.view.ui.ProgressDialog;
-import graphdivider.view.ui.graph.GraphColoring;
 import graphdivider.view.ui.graph.Vertex;
 import graphdivider.io.Output;
 
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.Locale;
 
 /**
  * Controller for graph actions and logic.
@@ -29,8 +29,8 @@ public final class GraphController
     private int lastNumParts = 2;
     private int lastEdgesCut = 0;
 
-    // Adjacency matrix after partitioning
-    private CSRmatrix adjacencyDivided = null;
+    // Adjacency matrix after partitioning, gap-encoded while it waits to be saved
+    private SparseMatrix adjacencyDivided = null;
 
     /**
      * Sets the graph view panel for this controller.
@@ -170,34 +170,15 @@ public final class GraphController
             frame.handleLoadPartitionedBinaryGraph();
         });
 
-        // Register save listeners
-        menuBar.addSavePartitionedGraphTextMenuItemListener(e ->
+        menuBar.addStreamPartitionMenuItemListener(e ->
         {
-            // Suggest default filename
-            String baseName = (lastInputFilename != null ? lastInputFilename.replaceAll("\\.[^.]*$", "") : "graph");
-            String defaultName = String.format("%s_parts%d_cut%d.csrrg2", baseName, lastNumParts, lastEdgesCut);
-
-            // Show save dialog for text file
-            JFileChooser fileChooser = new JFileChooser("src/main/resources/output");
-            fileChooser.setDialogTitle("Save Partitioned Graph (Text)");
-            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSR Partitioned Graph files (*.csrrg2)", "csrrg2"));
-            fileChooser.setSelectedFile(new java.io.File(defaultName));
-            int result = fileChooser.showSaveDialog(frame);
-            if (result == JFileChooser.APPROVE_OPTION)
-            {
-                java.io.File file = fileChooser.getSelectedFile();
-                try {
-                    // Pass the loaded graph model to Output.writeText
-                    // In savePartitionedTextListener
-                    Output.writeText(file, lastNumParts, lastEdgesCut, frame.getPartitionPanel().getMarginKept(),
-                            this.loadedGraph != null ? this.loadedGraph.model : null, adjacencyDivided);
-                    System.out.println("[MenuBar] Saving partitioned graph as text to: " + file.getAbsolutePath());
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                    JOptionPane.showMessageDialog(frame, "Failed to save file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
+            System.out.println("[MenuBar] Stream-partition graph selected.");
+            streamPartitionGraph(frame, toolPanel);
         });
+
+        // Register save listeners
+        menuBar.addSavePartitionedGraphTextMenuItemListener(e ->
+                savePartitionedText(frame, lastNumParts, lastEdgesCut, frame.getPartitionPanel().getMarginKept(), adjacencyDivided));
         menuBar.addSavePartitionedGraphBinaryMenuItemListener(e ->
         {
             // Suggest default filename
@@ -226,6 +207,18 @@ public final class GraphController
             }
         });
 
+        toolPanel.addSweepButtonActionListener(e ->
+        {
+            System.out.println("[ToolPanel] Part count sweep selected.");
+            sweepPartitions(frame, toolPanel);
+        });
+
+        toolPanel.addHierarchicalButtonActionListener(e ->
+        {
+            System.out.println("[ToolPanel] Nodes x cores partition selected.");
+            hierarchicalPartition(frame, toolPanel);
+        });
+
         toolPanel.addPartitionButtonActionListener(e ->
         {
             try
@@ -239,17 +232,27 @@ public final class GraphController
                 frame.setToolPanelEnabled(false);
 
                 int numParts = toolPanel.getPartitionCount();
+                int margin = toolPanel.getPartitionMargin();
+                Partitioner engine = toolPanel.getEngine();
+                ClusteringOptions options = new ClusteringOptions(toolPanel.getSeed(), toolPanel.getRestarts(), toolPanel.getKMeansMode());
+                PartitionRequest request = new PartitionRequest(loadedGraph.adjacency, loadedGraph.laplacian, loadedGraph.model,
+                        numParts, margin, options, toolPanel.getStartVector(), loadedGraph.model.getVertexWeights());
+                JobControl job = new JobControl(toolPanel.getTimeLimitSeconds() * 1000L);
 
                 ProgressDialog progressDialog = new ProgressDialog(frame, "Partitioning Graph", "Calculating eigenvalues and eigenvectors...");
+                progressDialog.addCancelListener(c ->
+                {
+                    System.out.println("[GraphController] Cancelling partitioning...");
+                    job.cancel();
+                });
                 progressDialog.setVisible(true);
 
-                SwingWorker<GraphEigenvalues.EigenResult, Void> worker = new SwingWorker<>()
+                SwingWorker<PartitionResult, Void> worker = new SwingWorker<>()
                 {
                     @Override
-                    protected GraphEigenvalues.EigenResult doInBackground() throws Exception
+                    protected PartitionResult doInBackground() throws Exception
                     {
-                        CSRmatrix laplacian = loadedGraph.laplacian;
-                        return GraphEigenvalues.computeSmallestEigenpairs(laplacian, numParts);
+                        return engine.partition(request, job);
                     }
 
                     @Override
@@ -257,47 +260,33 @@ public final class GraphController
                     {
                         try
                         {
-                            GraphEigenvalues.EigenResult eigenresult = get();
-                            GraphEigenvalues.printEigenData(eigenresult);
-
-                            int numParts = toolPanel.getPartitionCount();
-                            int[] clusters = GraphClusterization.clusterizeGraph(eigenresult, numParts);
-
-                            adjacencyDivided = CSRmatrix.maskCutEdges(loadedGraph.matrix, clusters);
-
-                            Vertex[] vertices = graphView.getVertices();
-                            if (vertices == null || clusters == null)
+                            PartitionResult result = get();
+                            System.out.println("[GraphController] Engine " + result.engineId() + " finished in "
+                                    + result.elapsedMillis() + " ms, edges cut " + result.edgesCut());
+                            if (job.isBudgetExhausted())
                             {
-                                throw new IllegalArgumentException("Vertices or clusters are null.");
+                                System.out.println("[GraphController] Time budget exhausted, showing best partition found so far.");
                             }
-                            if (vertices.length != clusters.length)
+
+                            showPartition(frame, result, numParts);
+                            if (result.suggestions() != null)
                             {
-                                System.err.println("Vertices length: " + vertices.length);
-                                System.err.println("Clusters length: " + clusters.length);
-                                throw new IllegalArgumentException("Vertices and clusters must have the same length.");
+                                frame.getToolPanel().setSuggestions(result.suggestions());
                             }
-
-                            GraphClusterization.printClusters(clusters);
-
-                            // Calculate edges cut BEFORE updating clusters
-                            int edgesCut = GraphColoring.calculateEdgesCut(vertices, clusters, graphView.getEdges());
-                            double marginKept = GraphClusterization.calculateMargin(clusters, numParts);
-
-                            // Store for default filename
-                            lastNumParts = numParts;
-                            lastEdgesCut = edgesCut;
-
-                            graphView.updateClusters(clusters);
-
-                            frame.updatePartitionPanel(edgesCut, marginKept);
-
-                            // Enable save buttons after partitioning
-                            frame.getAppMenuBar().setSaveMenuItemsEnabled(true);
                         }
                         catch (Exception ex)
                         {
-                            ex.printStackTrace();
-                            JOptionPane.showMessageDialog(frame, "Error computing eigenpairs: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                            Throwable cause = ex instanceof java.util.concurrent.ExecutionException && ex.getCause() != null
+                                    ? ex.getCause() : ex;
+                            if (cause instanceof java.util.concurrent.CancellationException)
+                            {
+                                System.out.println("[GraphController] Partitioning cancelled.");
+                            }
+                            else
+                            {
+                                cause.printStackTrace();
+                                JOptionPane.showMessageDialog(frame, "Error computing eigenpairs: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                            }
                             // Re-enable controls on error
                             frame.setToolPanelEnabled(true);
                         } finally
@@ -316,6 +305,410 @@ public final class GraphController
         });
     }
 
+    /**
+     * Runs a spectral sweep over p = 2 .. the selected part count from one eigen solve
+     * (see {@link PartitionSweep}) and lists the results in a {@link graphdivider.view.ui.SweepDialog},
+     * from which one partition can be shown or exported.
+     *
+     * @param frame The main application frame.
+     * @param toolPanel The tool panel with the partition settings.
+     */
+    private void sweepPartitions(graphdivider.view.Frame frame, graphdivider.view.ui.ToolPanel toolPanel)
+    {
+        if (this.loadedGraph == null)
+        {
+            JOptionPane.showMessageDialog(frame, "No graph loaded.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int maxParts = toolPanel.getPartitionCount();
+        if (maxParts < 3)
+        {
+            JOptionPane.showMessageDialog(frame, "Select at least 3 parts to sweep 2.." + maxParts + ".", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        frame.setToolPanelEnabled(false);
+        ClusteringOptions options = new ClusteringOptions(toolPanel.getSeed(), toolPanel.getRestarts(), toolPanel.getKMeansMode());
+        PartitionRequest request = new PartitionRequest(loadedGraph.adjacency, loadedGraph.laplacian, loadedGraph.model,
+                maxParts, toolPanel.getPartitionMargin(), options, toolPanel.getStartVector(), loadedGraph.model.getVertexWeights());
+        JobControl job = new JobControl(toolPanel.getTimeLimitSeconds() * 1000L);
+
+        ProgressDialog progressDialog = new ProgressDialog(frame, "Partitioning Graph", "Sweeping part counts 2.." + maxParts + "...");
+        progressDialog.addCancelListener(c ->
+        {
+            System.out.println("[GraphController] Cancelling sweep...");
+            job.cancel();
+        });
+        progressDialog.setVisible(true);
+
+        SwingWorker<java.util.List<PartitionResult>, Void> worker = new SwingWorker<>()
+        {
+            @Override
+            protected java.util.List<PartitionResult> doInBackground() throws Exception
+            {
+                return PartitionSweep.sweep(request, 2, job);
+            }
+
+            @Override
+            protected void done()
+            {
+                // The view is untouched until a result is shown
+                frame.setToolPanelEnabled(true);
+                try
+                {
+                    java.util.List<PartitionResult> results = get();
+                    frame.getToolPanel().setSuggestions(results.get(0).suggestions());
+                    new graphdivider.view.ui.SweepDialog(frame, results,
+                            result ->
+                            {
+                                frame.setToolPanelEnabled(false);
+                                showPartition(frame, result, result.metrics().partSizes().length);
+                            },
+                            result -> savePartitionedText(frame, result.metrics().partSizes().length, result.edgesCut(),
+                                    result.marginKept(), CSRmatrix.maskCutEdges(loadedGraph.matrix, result.clusters())))
+                            .setVisible(true);
+                }
+                catch (Exception ex)
+                {
+                    Throwable cause = ex instanceof java.util.concurrent.ExecutionException && ex.getCause() != null
+                            ? ex.getCause() : ex;
+                    if (cause instanceof java.util.concurrent.CancellationException)
+                    {
+                        System.out.println("[GraphController] Sweep cancelled.");
+                    }
+                    else
+                    {
+                        cause.printStackTrace();
+                        JOptionPane.showMessageDialog(frame, "Error computing eigenpairs: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                finally
+                {
+                    progressDialog.dispose();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Partitions the loaded graph into nodes, then every node into cores (see {@link HierarchicalPartitioner}),
+     * shows the nodes x cores parts and reports the cut per level. The two-level assignment can then be
+     * saved as text.
+     *
+     * @param frame The main application frame.
+     * @param toolPanel The tool panel with the partition settings.
+     */
+    private void hierarchicalPartition(graphdivider.view.Frame frame, graphdivider.view.ui.ToolPanel toolPanel)
+    {
+        Locale locale = Language.getCurrentLocale();
+        boolean isPolish = locale != null && locale.getLanguage().equals("pl");
+        String title = isPolish ? "Podział węzły x rdzenie" : "Nodes x Cores Partition";
+        String errorTitle = isPolish ? "Błąd" : "Error";
+        if (this.loadedGraph == null)
+        {
+            JOptionPane.showMessageDialog(frame, isPolish ? "Nie wczytano grafu." : "No graph loaded.", errorTitle, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int n = loadedGraph.adjacency.size();
+        JSpinner nodesSpinner = new JSpinner(new SpinnerNumberModel(2, 2, Math.max(2, n / 2), 1));
+        JSpinner coresSpinner = new JSpinner(new SpinnerNumberModel(2, 1, Math.max(1, n / 2), 1));
+        JSpinner weightSpinner = new JSpinner(new SpinnerNumberModel(HierarchicalPartitioner.DEFAULT_INTER_NODE_WEIGHT, 1.0, 1000.0, 0.5));
+        Object[] fields = isPolish
+                ? new Object[] {"Węzły:", nodesSpinner, "Rdzenie na węzeł:", coresSpinner, "Waga cięcia między węzłami:", weightSpinner}
+                : new Object[] {"Nodes:", nodesSpinner, "Cores per node:", coresSpinner, "Inter-node cut weight:", weightSpinner};
+        if (JOptionPane.showConfirmDialog(frame, fields, title, JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return;
+        int nodeCount = (Integer) nodesSpinner.getValue();
+        int coresPerNode = (Integer) coresSpinner.getValue();
+        double weight = (Double) weightSpinner.getValue();
+        if ((long) nodeCount * coresPerNode > n)
+        {
+            JOptionPane.showMessageDialog(frame, isPolish
+                    ? "Węzły x rdzenie (" + nodeCount * coresPerNode + ") przekracza liczbę wierzchołków (" + n + ")."
+                    : "Nodes x cores (" + nodeCount * coresPerNode + ") exceeds the number of vertices (" + n + ").",
+                    errorTitle, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        frame.setToolPanelEnabled(false);
+        Partitioner engine = toolPanel.getEngine();
+        ClusteringOptions options = new ClusteringOptions(toolPanel.getSeed(), toolPanel.getRestarts(), toolPanel.getKMeansMode());
+        PartitionRequest request = new PartitionRequest(loadedGraph.adjacency, loadedGraph.laplacian, loadedGraph.model,
+                nodeCount, toolPanel.getPartitionMargin(), options, toolPanel.getStartVector(), loadedGraph.model.getVertexWeights());
+        JobControl job = new JobControl(toolPanel.getTimeLimitSeconds() * 1000L);
+
+        ProgressDialog progressDialog = new ProgressDialog(frame, isPolish ? "Podział grafu" : "Partitioning Graph",
+                isPolish ? "Podział na " + nodeCount + " węzłów x " + coresPerNode + " rdzeni..."
+                        : "Partitioning into " + nodeCount + " nodes x " + coresPerNode + " cores...");
+        progressDialog.addCancelListener(c ->
+        {
+            System.out.println("[GraphController] Cancelling nodes x cores partition...");
+            job.cancel();
+        });
+        progressDialog.setVisible(true);
+
+        SwingWorker<HierarchicalPartitioner.Result, Void> worker = new SwingWorker<>()
+        {
+            @Override
+            protected HierarchicalPartitioner.Result doInBackground() throws Exception
+            {
+                return HierarchicalPartitioner.partition(request, coresPerNode, engine, weight, job);
+            }
+
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    HierarchicalPartitioner.Result result = get();
+                    int numParts = nodeCount * coresPerNode;
+                    showPartition(frame, new PartitionResult("hierarchical", result.clusters(), result.metrics(), -1,
+                            result.elapsedMillis(), null), numParts);
+                    progressDialog.dispose();
+
+                    String format = isPolish
+                            ? "Węzły: %d x rdzenie: %d\nKrawędzie przecięte między węzłami: %d\nKrawędzie przecięte w węzłach: %d\n"
+                                    + "Cięcie ważone (x%.1f): %.1f\nMargines węzłów: %.2f%%\nMargines całkowity: %.2f%%"
+                            : "Nodes: %d x cores: %d\nInter-node edges cut: %d\nIntra-node edges cut: %d\n"
+                                    + "Weighted cut (x%.1f): %.1f\nNode margin: %.2f%%\nOverall margin: %.2f%%";
+                    String summary = String.format(format,
+                            nodeCount, coresPerNode, result.interNodeEdgesCut(), result.intraNodeEdgesCut(),
+                            weight, result.weightedEdgesCut(), result.nodeMetrics().marginKept(), result.metrics().marginKept());
+                    Object[] choices = isPolish
+                            ? new Object[] {"Zapisz przypisania...", "Zamknij"}
+                            : new Object[] {"Save Assignments...", "Close"};
+                    if (JOptionPane.showOptionDialog(frame, summary, title, JOptionPane.DEFAULT_OPTION,
+                            JOptionPane.INFORMATION_MESSAGE, null, choices, choices[1]) == 0)
+                    {
+                        saveHierarchicalAssignments(frame, result);
+                    }
+                }
+                catch (Exception ex)
+                {
+                    Throwable cause = ex instanceof java.util.concurrent.ExecutionException && ex.getCause() != null
+                            ? ex.getCause() : ex;
+                    if (cause instanceof java.util.concurrent.CancellationException)
+                    {
+                        System.out.println("[GraphController] Nodes x cores partition cancelled.");
+                    }
+                    else
+                    {
+                        cause.printStackTrace();
+                        JOptionPane.showMessageDialog(frame, (isPolish ? "Błąd podziału grafu: " : "Error partitioning graph: ")
+                                + cause.getMessage(), errorTitle, JOptionPane.ERROR_MESSAGE);
+                    }
+                    frame.setToolPanelEnabled(true);
+                }
+                finally
+                {
+                    progressDialog.dispose();
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Asks for a file name and saves a two-level assignment as text (see {@link Output#writeHierarchicalAssignments}).
+     *
+     * @param frame The main application frame.
+     * @param result Two-level partition to save.
+     */
+    private void saveHierarchicalAssignments(graphdivider.view.Frame frame, HierarchicalPartitioner.Result result)
+    {
+        String baseName = (lastInputFilename != null ? lastInputFilename.replaceAll("\\.[^.]*$", "") : "graph");
+        String defaultName = String.format("%s_nodes%d_cores%d_assignments.txt", baseName, result.nodeCount(), result.coresPerNode());
+        Locale locale = Language.getCurrentLocale();
+        boolean isPolish = locale != null && locale.getLanguage().equals("pl");
+        JFileChooser fileChooser = new JFileChooser("src/main/resources/output");
+        fileChooser.setDialogTitle(isPolish ? "Zapisz przypisania węzłów i rdzeni (tekst)" : "Save Node and Core Assignments (Text)");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                isPolish ? "Pliki przypisań (*.txt)" : "Assignment files (*.txt)", "txt"));
+        fileChooser.setSelectedFile(new File(defaultName));
+        if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        File file = fileChooser.getSelectedFile();
+        try
+        {
+            Output.writeHierarchicalAssignments(file, result.nodes(), result.cores());
+            System.out.println("[GraphController] Node and core assignments saved to: " + file.getAbsolutePath());
+        }
+        catch (IOException ex)
+        {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(frame, (isPolish ? "Nie udało się zapisać pliku: " : "Failed to save file: ") + ex.getMessage(),
+                    isPolish ? "Błąd zapisu" : "Save Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Shows a partition in the graph view and the partition panel and enables saving.
+     * The view removes cut edges, so it can show one partition per loaded graph.
+     *
+     * @param frame The main application frame.
+     * @param result Partition to show.
+     * @param numParts Number of parts.
+     * @throws IllegalArgumentException if the partition does not match the displayed graph.
+     */
+    private void showPartition(graphdivider.view.Frame frame, PartitionResult result, int numParts)
+    {
+        int[] clusters = result.clusters();
+        adjacencyDivided = CompressedCSRmatrix.compress(CSRmatrix.maskCutEdges(loadedGraph.matrix, clusters));
+
+        Vertex[] vertices = graphView.getVertices();
+        if (vertices == null || clusters == null)
+        {
+            throw new IllegalArgumentException("Vertices or clusters are null.");
+        }
+        if (vertices.length != clusters.length)
+        {
+            System.err.println("Vertices length: " + vertices.length);
+            System.err.println("Clusters length: " + clusters.length);
+            throw new IllegalArgumentException("Vertices and clusters must have the same length.");
+        }
+
+        GraphClusterization.printClusters(clusters);
+
+        // Quality from the CSR matrix (also used in the saved files)
+        PartitionMetrics metrics = result.metrics();
+        metrics.print();
+
+        // Store for default filename
+        lastNumParts = numParts;
+        lastEdgesCut = metrics.edgesCut();
+
+        graphView.updateClusters(clusters);
+
+        frame.updatePartitionPanel(metrics);
+        frame.getPartitionPanel().setUnrefinedEdgesCut(result.unrefinedEdgesCut());
+
+        // Enable save buttons after partitioning
+        frame.getAppMenuBar().setSaveMenuItemsEnabled(true);
+    }
+
+    /**
+     * Asks for a file name and saves a partitioned graph in the text format (.csrrg2).
+     *
+     * @param frame The main application frame.
+     * @param numParts Number of parts.
+     * @param edgesCut Number of edges cut.
+     * @param marginKept Margin kept in percent.
+     * @param divided Adjacency matrix with the cut edges masked (see {@link CSRmatrix#maskCutEdges}).
+     */
+    private void savePartitionedText(graphdivider.view.Frame frame, int numParts, int edgesCut, double marginKept, SparseMatrix divided)
+    {
+        // Suggest default filename
+        String baseName = (lastInputFilename != null ? lastInputFilename.replaceAll("\\.[^.]*$", "") : "graph");
+        String defaultName = String.format("%s_parts%d_cut%d.csrrg2", baseName, numParts, edgesCut);
+
+        // Show save dialog for text file
+        JFileChooser fileChooser = new JFileChooser("src/main/resources/output");
+        fileChooser.setDialogTitle("Save Partitioned Graph (Text)");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSR Partitioned Graph files (*.csrrg2)", "csrrg2"));
+        fileChooser.setSelectedFile(new java.io.File(defaultName));
+        int result = fileChooser.showSaveDialog(frame);
+        if (result == JFileChooser.APPROVE_OPTION)
+        {
+            java.io.File file = fileChooser.getSelectedFile();
+            try {
+                // Pass the loaded graph model to Output.writeText
+                Output.writeText(file, numParts, edgesCut, marginKept,
+                        this.loadedGraph != null ? this.loadedGraph.model : null, divided);
+                System.out.println("[MenuBar] Saving partitioned graph as text to: " + file.getAbsolutePath());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(frame, "Failed to save file: " + ex.getMessage(), "Save Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Partitions a graph file in one streaming pass without loading it (see {@link StreamingPartitioner})
+     * and writes the assignment straight to a text file. Meant for graphs too large to load and display;
+     * the number of parts and the margin come from the tool panel.
+     *
+     * @param frame The main application frame.
+     * @param toolPanel The tool panel with the partition settings.
+     */
+    private void streamPartitionGraph(graphdivider.view.Frame frame, graphdivider.view.ui.ToolPanel toolPanel)
+    {
+        JFileChooser inputChooser = new JFileChooser("src/main/resources/graphs/");
+        inputChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        inputChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSR Graph files (*.csrrg)", "csrrg"));
+        if (inputChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        File input = inputChooser.getSelectedFile();
+
+        int numParts = toolPanel.getPartitionCount();
+        int margin = toolPanel.getPartitionMargin();
+        String defaultName = String.format("%s_parts%d_assignments.txt", input.getName().replaceAll("\\.[^.]*$", ""), numParts);
+        JFileChooser outputChooser = new JFileChooser("src/main/resources/output");
+        outputChooser.setDialogTitle("Save Partition Assignments (Text)");
+        outputChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Assignment files (*.txt)", "txt"));
+        outputChooser.setSelectedFile(new File(defaultName));
+        if (outputChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        File output = outputChooser.getSelectedFile();
+
+        System.out.println("[GraphController] Stream-partitioning " + input.getName() + " into " + numParts + " parts...");
+        // Restore the tool panel to its previous state afterwards (it stays disabled until a graph is loaded)
+        boolean toolPanelEnabled = toolPanel.getPartitionCountSpinner().isEnabled();
+        frame.setToolPanelEnabled(false);
+        JobControl job = JobControl.unlimited();
+        ProgressDialog progressDialog = new ProgressDialog(frame, "Partitioning Graph", "Streaming graph file, please wait...");
+        progressDialog.addCancelListener(c ->
+        {
+            System.out.println("[GraphController] Cancelling streaming partition...");
+            job.cancel();
+        });
+        progressDialog.setVisible(true);
+
+        SwingWorker<StreamingPartitioner.Result, Void> worker = new SwingWorker<>()
+        {
+            @Override
+            protected StreamingPartitioner.Result doInBackground() throws Exception
+            {
+                StreamingPartitioner.Result result = StreamingPartitioner.partition(input, numParts, margin, job);
+                Output.writeAssignments(output, result.clusters());
+                return result;
+            }
+
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    StreamingPartitioner.Result result = get();
+                    System.out.println("[GraphController] Assignments saved to: " + output.getAbsolutePath());
+                    JOptionPane.showMessageDialog(frame,
+                            String.format("Parts: %d\nEdges cut: %d%s\nMargin: %.2f%%\nSaved to: %s",
+                                    numParts, result.edgesCut(),
+                                    result.cutWeight() != result.edgesCut() ? " (weight " + result.cutWeight() + ")" : "",
+                                    result.margin(), output.getName()),
+                            "Streaming Partition", JOptionPane.INFORMATION_MESSAGE);
+                }
+                catch (Exception ex)
+                {
+                    Throwable cause = ex instanceof java.util.concurrent.ExecutionException && ex.getCause() != null
+                            ? ex.getCause() : ex;
+                    if (cause instanceof java.util.concurrent.CancellationException)
+                    {
+                        System.out.println("[GraphController] Streaming partition cancelled.");
+                    }
+                    else
+                    {
+                        cause.printStackTrace();
+                        JOptionPane.showMessageDialog(frame, "Error partitioning file: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                finally
+                {
+                    progressDialog.dispose();
+                    frame.setToolPanelEnabled(toolPanelEnabled);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     /**
      * Handles loading a text graph file (called from Frame).
      * Opens file chooser, loads graph, and displays it.
@@ -336,9 +729,7 @@ public final class GraphController
             System.out.println("[Controller] Selected file: " + selectedFile.getAbsolutePath());
 
             // Disable controls while loading
-            frame.getToolPanel().setPartitionButtonEnabled(false);
-            frame.getToolPanel().getPartitionCountSpinner().setEnabled(false);
-            frame.getToolPanel().getPartitionMarginSpinner().setEnabled(false);
+            frame.setToolPanelEnabled(false);
             frame.getAppMenuBar().setSaveMenuItemsEnabled(false);
 
             // Set partition panel to unknown at the beginning
@@ -383,9 +774,7 @@ public final class GraphController
                                     frame.setWindowTitleForFile(selectedFile);
 
                                     // Enable controls after loading
-                                    frame.getToolPanel().getPartitionCountSpinner().setEnabled(true);
-                                    frame.getToolPanel().getPartitionMarginSpinner().setEnabled(true);
-                                    frame.getToolPanel().setPartitionButtonEnabled(true);
+                                    frame.setToolPanelEnabled(true);
                                 }
                             };
 
@@ -483,9 +872,7 @@ public final class GraphController
                                 protected void done()
                                 {
                                     progressDialog.dispose();
-                                    frame.getToolPanel().getPartitionCountSpinner().setEnabled(false);
-                                    frame.getToolPanel().getPartitionMarginSpinner().setEnabled(false);
-                                    frame.getToolPanel().setPartitionButtonEnabled(false);
+                                    frame.setToolPanelEnabled(false);
                                     frame.getAppMenuBar().setSaveMenuItemsEnabled(false);
                                 }
                             };
@@ -581,9 +968,7 @@ public final class GraphController
                                 protected void done()
                                 {
                                     progressDialog.dispose();
-                                    frame.getToolPanel().getPartitionCountSpinner().setEnabled(false);
-                                    frame.getToolPanel().getPartitionMarginSpinner().setEnabled(false);
-                                    frame.getToolPanel().setPartitionButtonEnabled(false);
+                                    frame.setToolPanelEnabled(false);
                                     frame.getAppMenuBar().setSaveMenuItemsEnabled(false);
                                 }
                             };
@@ -619,11 +1004,15 @@ public final class GraphController
         public final GraphModel model;
         // Adjacency matrix (CSR)
         public final CSRmatrix matrix;
-        // Laplacian matrix (CSR)
-        public final CSRmatrix laplacian;
+        // Laplacian matrix (upper triangle only, the resident copy used by the eigen solves)
+        public final SymmetricCSRmatrix laplacian;
+        // Symmetric vertex-indexed adjacency matrix derived from the Laplacian (CSR)
+        public final CSRmatrix adjacency;
 
         /**
          * Constructs a LoadedGraph with model, matrix, and laplacian.
+         * The symmetric adjacency used by refinement is derived from the Laplacian, which is then kept
+         * in half storage only; the full Laplacian is not retained.
          * 
          * @param model GraphModel object.
          * @param matrix CSRmatrix adjacency matrix.
@@ -633,7 +1022,8 @@ public final class GraphController
         {
             this.model = model;
             this.matrix = matrix;
-            this.laplacian = laplacian;
+            this.adjacency = GraphLoader.toAdjacencyCSRmatrix(laplacian);
+            this.laplacian = SymmetricCSRmatrix.fromFull(laplacian);
         }
     }
 }
@@ -1,7 +1,7 @@
 package graphdivider.io;
 
-import graphdivider.model.CSRmatrix;
 import graphdivider.model.GraphModel;
+import graphdivider.model.SparseMatrix;
 
 import java.io.*;
 
@@ -20,10 +20,10 @@ public final class Output
      * @param edgesCut Number of edges cut by the partition.
      * @param marginKept Margin kept by the partition.
      * @param graphModel The original graph model.
-     * @param adjacencyDivided The partitioned adjacency matrix.
+     * @param adjacencyDivided The partitioned adjacency matrix (plain or compressed CSR).
      * @throws IOException If an I/O error occurs.
      */
-    public static void writeText(File file, int numParts, int edgesCut, double marginKept, GraphModel graphModel, CSRmatrix adjacencyDivided) throws IOException
+    public static void writeText(File file, int numParts, int edgesCut, double marginKept, GraphModel graphModel, SparseMatrix adjacencyDivided) throws IOException
     {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file)))
         {
@@ -42,20 +42,16 @@ public final class Output
             writer.newLine();
 
             // Write adjacency data and pointers
-            int n = adjacencyDivided.getNumRows();
+            int n = adjacencyDivided.size();
             int pointer = 0;
             int pointers_count = 0;
             int[] pointers = new int[n];
             for (int i = 0; i < n; i++)
             {
-                int[] adj = adjacencyDivided.getAdjacencyForRow(i);
                 writer.write(i + ";");
-                pointers[pointers_count++] = pointer++;
-                for (int v : adj)
-                {
-                    writer.write(v + ";");
-                    pointer++;
-                }
+                pointers[pointers_count++] = pointer;
+                pointer += 1 + adjacencyDivided.rowLength(i);
+                adjacencyDivided.forEachInRow(i, (v, weight) -> writer.write(v + ";"));
             }
 
             writer.newLine();
@@ -77,10 +73,10 @@ public final class Output
      * @param edgesCut Number of edges cut by the partition.
      * @param marginKept Margin kept by the partition.
      * @param graphModel The original graph model.
-     * @param adjacencyDivided The partitioned adjacency matrix.
+     * @param adjacencyDivided The partitioned adjacency matrix (plain or compressed CSR).
      * @throws IOException If an I/O error occurs.
      */
-    public static void writeBinary(File file, int numParts, int edgesCut, double marginKept, GraphModel graphModel, CSRmatrix adjacencyDivided) throws IOException
+    public static void writeBinary(File file, int numParts, int edgesCut, double marginKept, GraphModel graphModel, SparseMatrix adjacencyDivided) throws IOException
     {
         try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file)))
         {
@@ -103,28 +99,21 @@ public final class Output
             for (int v : rowStartIndices) out.writeInt(v);
 
             // Write adjacency data
-            int n = adjacencyDivided.getNumRows();
+            int n = adjacencyDivided.size();
             int pointer = 0;
             int pointers_count = 0;
             int[] pointers = new int[n];
 
-            // Count total adjacency elements
-            int totalAdjacencyElements = 0;
-            for (int i = 0; i < n; i++) {
-                totalAdjacencyElements += 1 + adjacencyDivided.getAdjacencyForRow(i).length;
-            }
+            // Total adjacency elements: one row index plus the neighbours of every row
+            int totalAdjacencyElements = n + adjacencyDivided.nonZeros();
             out.writeInt(totalAdjacencyElements); // Write number of adjacency elements
 
             for (int i = 0; i < n; i++)
             {
-                int[] adj = adjacencyDivided.getAdjacencyForRow(i);
                 out.writeInt(i); // row index
-                pointers[pointers_count++] = pointer++;
-                for (int v : adj)
-                {
-                    out.writeInt(v);
-                    pointer++;
-                }
+                pointers[pointers_count++] = pointer;
+                pointer += 1 + adjacencyDivided.rowLength(i);
+                adjacencyDivided.forEachInRow(i, (v, weight) -> out.writeInt(v));
             }
 
             // Write pointers
@@ -138,6 +127,47 @@ public final class Output
         testReadBinary(file);
     }
 
+    /**
+     * Saves a vertex-to-part assignment in the "przypisania" text format:
+     * one line "Wierzcholek i => czesc k" per vertex, with k counted from 0.
+     *
+     * @param file Output file to write to.
+     * @param clusters Cluster index (1-based) of each vertex.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeAssignments(File file, int[] clusters) throws IOException
+    {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file)))
+        {
+            for (int i = 0; i < clusters.length; i++)
+            {
+                writer.write("Wierzcholek " + i + " => czesc " + (clusters[i] - 1));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Saves a two-level (node and core) assignment as text:
+     * one line "Wierzcholek i => wezel a, rdzen b" per vertex, with a and b counted from 0.
+     *
+     * @param file Output file to write to.
+     * @param nodes Node index (1-based) of each vertex.
+     * @param cores Core index (1-based) of each vertex within its node.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeHierarchicalAssignments(File file, int[] nodes, int[] cores) throws IOException
+    {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file)))
+        {
+            for (int i = 0; i < nodes.length; i++)
+            {
+                writer.write("Wierzcholek " + i + " => wezel " + (nodes[i] - 1) + ", rdzen " + (cores[i] - 1));
+                writer.newLine();
+            }
+        }
+    }
+
     /**
      * Converts an int array to a semicolon-separated string.
      *
@@ -0,0 +1,837 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel capacity-balanced k-means over a spectral embedding.
+ * Each iteration runs in three phases:
+ * <ol>
+ *     <li>every vertex finds its nearest centroid (parallel over vertex chunks),</li>
+ *     <li>overflowing clusters keep their closest members up to capacity and the evicted
+ *         vertices move to the nearest cluster that still has room (sequential, only touches evicted vertices),</li>
+ *     <li>centroids are recomputed from per-chunk partial sums merged in chunk order.</li>
+ * </ol>
+ * Cluster c ends up with exactly n / p vertices, plus one for the first n % p clusters.
+ * With vertex weights the capacity is a weight instead: every cluster may hold up to
+ * ceil(total weight / p), overflowing clusters keep their closest members that still fit, and an
+ * evicted vertex that fits nowhere joins the lightest cluster (refinement restores the margin).
+ * Chunks have a fixed size, so results do not depend on the number of cores.
+ * <p>
+ * In {@link KMeansMode#HAMERLY} mode phase 1 keeps, per vertex, an upper bound on the distance
+ * to its nearest centroid and a lower bound on the distance to every other centroid.
+ * When the upper bound is strictly below the lower bound (or below half the gap between the
+ * nearest centroid and its closest neighbour) the nearest centroid cannot have changed and
+ * the vertex is skipped. Skipping only happens when the nearest centroid is unique, so both
+ * modes produce the same assignment.
+ * <p>
+ * {@link #runMiniBatch} instead moves the centroids towards random vertex samples with a
+ * per-centroid learning rate of 1 / (samples seen), and enforces the capacities in a single
+ * final full pass. It trades some quality (reported as inertia, comparable with {@link #run})
+ * for a number of distance evaluations that does not grow with n.
+ */
+public final class BalancedKMeans
+{
+    // Vertices per parallel work unit (fixed for reproducible floating-point sums)
+    private static final int CHUNK_SIZE = 4096;
+    // Mini-batch stops once a batch moves the centroids by less than this (squared, relative)
+    private static final double MINI_BATCH_TOLERANCE = 1e-10;
+
+    // Embedding, row-major: data[i * dimensions + j]
+    private final double[] data;
+    private final int n;
+    private final int dimensions;
+    private final int p;
+    private final KMeansMode mode;
+    // Target size of each cluster
+    private final int[] capacity;
+    // Weight of each vertex (null = unit weights, exact capacities) and weight capacity per cluster
+    private final int[] vertexWeights;
+    private final long weightCapacity;
+    private final long[] clusterWeights;
+
+    // Centroid buffers (swapped every iteration)
+    private double[] centroids;
+    private double[] newCentroids;
+    // Current assignment (0-based) and nearest-centroid phase results
+    private final int[] clusters;
+    private final int[] nearest;
+    private final double[] nearestDistance;
+    // Per-chunk partial results
+    private final int chunks;
+    private final int[][] partialCounts;
+    private final double[][] partialSums;
+    // Rebalancing scratch
+    private final int[] clusterSizes;
+    private final int[] memberStart;
+    private final int[] members;
+    private final int[] evicted;
+
+    // Hamerly bounds (plain, not squared, distances); nearestDistance is stale where exact[i] is false
+    private final double[] upper;
+    private final double[] lower;
+    private final boolean[] exact;
+    // Distance each centroid moved in the last update, and half the distance to its closest other centroid
+    private final double[] moved;
+    private final double[] halfGap;
+    private final long[] partialEvaluations;
+    private long distanceEvaluations = 0;
+    private final double[] partialInertia;
+
+    // Sum of squared distances of the vertices to their assigned centroids after the last run
+    private double inertia = 0.0;
+
+    // Number of iterations performed by the last run
+    private int iterations = 0;
+
+    /**
+     * Creates a k-means instance with Hamerly bounds and allocates all working buffers.
+     *
+     * @param data Embedding, row-major [vertex * dimensions + dimension].
+     * @param dimensions Number of embedding dimensions.
+     * @param p Number of clusters (1 &lt;= p &lt;= n).
+     */
+    public BalancedKMeans(double[] data, int dimensions, int p)
+    {
+        this(data, dimensions, p, KMeansMode.HAMERLY);
+    }
+
+    /**
+     * Creates a k-means instance and allocates all working buffers.
+     *
+     * @param data Embedding, row-major [vertex * dimensions + dimension].
+     * @param dimensions Number of embedding dimensions.
+     * @param p Number of clusters (1 &lt;= p &lt;= n).
+     * @param mode Nearest-centroid strategy.
+     */
+    public BalancedKMeans(double[] data, int dimensions, int p, KMeansMode mode)
+    {
+        this(data, dimensions, p, mode, null);
+    }
+
+    /**
+     * Creates a k-means instance that balances clusters by vertex weight.
+     *
+     * @param data Embedding, row-major [vertex * dimensions + dimension].
+     * @param dimensions Number of embedding dimensions.
+     * @param p Number of clusters (1 &lt;= p &lt;= n).
+     * @param mode Nearest-centroid strategy.
+     * @param vertexWeights Positive weight of each vertex, or null to balance by vertex count.
+     * @throws IllegalArgumentException if p is out of range or the weights do not match the data.
+     */
+    public BalancedKMeans(double[] data, int dimensions, int p, KMeansMode mode, int[] vertexWeights)
+    {
+        this.data = data;
+        this.dimensions = dimensions;
+        this.n = data.length / dimensions;
+        this.p = p;
+        this.mode = mode;
+        if (p <= 0 || p > n)
+        {
+            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure 0 < p <= n.");
+        }
+
+        int minSize = n / p;
+        int extra = n % p; // Some clusters will have one extra
+        this.capacity = new int[p];
+        for (int c = 0; c < p; c++) capacity[c] = minSize + (c < extra ? 1 : 0);
+        if (vertexWeights != null && vertexWeights.length != n)
+        {
+            throw new IllegalArgumentException("Vertex weights length " + vertexWeights.length + " does not match n = " + n + ".");
+        }
+        this.vertexWeights = vertexWeights;
+        long totalWeight = 0;
+        if (vertexWeights != null) for (int w : vertexWeights) totalWeight += w;
+        this.weightCapacity = (totalWeight + p - 1) / p;
+        this.clusterWeights = vertexWeights != null ? new long[p] : null;
+
+        this.centroids = new double[p * dimensions];
+        this.newCentroids = new double[p * dimensions];
+        this.clusters = new int[n];
+        this.nearest = new int[n];
+        this.nearestDistance = new double[n];
+
+        this.chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.partialCounts = new int[chunks][p];
+        this.partialSums = new double[chunks][p * dimensions];
+
+        this.clusterSizes = new int[p];
+        this.memberStart = new int[p + 1];
+        this.members = new int[n];
+        this.evicted = new int[n];
+
+        boolean bounded = mode == KMeansMode.HAMERLY;
+        this.upper = bounded ? new double[n] : null;
+        this.lower = bounded ? new double[n] : null;
+        this.exact = new boolean[n];
+        this.moved = bounded ? new double[p] : null;
+        this.halfGap = bounded ? new double[p] : null;
+        this.partialEvaluations = new long[chunks];
+        this.partialInertia = new double[chunks];
+    }
+
+    /**
+     * Runs balanced k-means from the given initial centroids.
+     * Stops on convergence, after maxIterations, or (keeping the latest assignment)
+     * when the job budget is exhausted.
+     *
+     * @param initialCentroids Initial centroids, row-major [cluster * dimensions + dimension].
+     * @param maxIterations Maximum number of iterations.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public int[] run(double[] initialCentroids, int maxIterations, JobControl job)
+    {
+        System.arraycopy(initialCentroids, 0, centroids, 0, p * dimensions);
+        iterations = 0;
+        distanceEvaluations = 0;
+        for (int iteration = 0; iteration < maxIterations; iteration++)
+        {
+            job.checkCancelled();
+            // Keep the latest complete assignment once the budget runs out
+            if (iteration > 0 && job.isBudgetExhausted())
+            {
+                System.out.println("[BalancedKMeans] Time budget exhausted after " + iteration + " k-means iterations.");
+                break;
+            }
+
+            if (mode == KMeansMode.HAMERLY && iteration > 0) assignNearestBounded();
+            else assignNearest();
+            for (int chunk = 0; chunk < chunks; chunk++) distanceEvaluations += partialEvaluations[chunk];
+            resolveCapacities();
+            updateCentroids();
+            if (mode == KMeansMode.HAMERLY) measureCentroidMoves();
+            iterations++;
+
+            // Check for convergence, then swap buffers
+            boolean converged = Arrays.equals(centroids, newCentroids);
+            double[] previous = centroids;
+            centroids = newCentroids;
+            newCentroids = previous;
+            if (converged) break;
+        }
+
+        inertia = inertia(centroids);
+        return result();
+    }
+
+    /**
+     * Runs mini-batch k-means from the given initial centroids: every batch samples vertices
+     * uniformly, finds their nearest centroids and moves each of those centroids towards the sample
+     * with learning rate 1 / (number of samples it has absorbed so far). A final full pass then
+     * assigns all vertices with the same capacity rules as {@link #run}.
+     * Stops after maxBatches, when the centroids stop moving, or when the job budget is exhausted.
+     *
+     * @param initialCentroids Initial centroids, row-major [cluster * dimensions + dimension].
+     * @param batchSize Number of sampled vertices per batch.
+     * @param maxBatches Maximum number of batches.
+     * @param random Random source for sampling (seeded for reproducible results).
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public int[] runMiniBatch(double[] initialCentroids, int batchSize, int maxBatches, Random random, JobControl job)
+    {
+        System.arraycopy(initialCentroids, 0, centroids, 0, p * dimensions);
+        iterations = 0;
+        distanceEvaluations = 0;
+
+        int[] batch = new int[batchSize];
+        int[] batchNearest = new int[batchSize];
+        long[] absorbed = new long[p];
+        for (int b = 0; b < maxBatches; b++)
+        {
+            job.checkCancelled();
+            if (b > 0 && job.isBudgetExhausted())
+            {
+                System.out.println("[BalancedKMeans] Time budget exhausted after " + b + " mini-batches.");
+                break;
+            }
+
+            // Nearest centroids are taken before the batch moves them
+            for (int k = 0; k < batchSize; k++)
+            {
+                int i = random.nextInt(n);
+                batch[k] = i;
+                batchNearest[k] = nearestCentroid(i);
+            }
+            distanceEvaluations += (long) batchSize * p;
+
+            System.arraycopy(centroids, 0, newCentroids, 0, p * dimensions);
+            for (int k = 0; k < batchSize; k++)
+            {
+                int c = batchNearest[k];
+                double rate = 1.0 / ++absorbed[c];
+                int offset = c * dimensions;
+                int vertexOffset = batch[k] * dimensions;
+                for (int j = 0; j < dimensions; j++)
+                {
+                    centroids[offset + j] += rate * (data[vertexOffset + j] - centroids[offset + j]);
+                }
+            }
+            iterations++;
+
+            // Converged when the batch moved the centroids by a negligible fraction of their length
+            double movement = 0.0;
+            double length = 0.0;
+            for (int k = 0; k < p * dimensions; k++)
+            {
+                double diff = centroids[k] - newCentroids[k];
+                movement += diff * diff;
+                length += centroids[k] * centroids[k];
+            }
+            if (movement <= MINI_BATCH_TOLERANCE * length) break;
+        }
+
+        // Single full pass enforces the balanced capacities
+        assignNearest();
+        for (int chunk = 0; chunk < chunks; chunk++) distanceEvaluations += partialEvaluations[chunk];
+        resolveCapacities();
+        double sampledInertia = inertia(centroids);
+
+        // Score the assignment against its exact cluster means, like the exact modes do
+        updateCentroids();
+        double[] previous = centroids;
+        centroids = newCentroids;
+        newCentroids = previous;
+        inertia = inertia(centroids);
+        System.out.println(String.format("[BalancedKMeans] Mini-batch: %d batches, inertia %.6g (%.6g against the sampled centroids)",
+                iterations, inertia, sampledInertia));
+        return result();
+    }
+
+    /**
+     * Copies the current assignment to a new 1-based array.
+     *
+     * @return Array of cluster indices (1-based) for each vertex.
+     */
+    private int[] result()
+    {
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) result[i] = clusters[i] + 1; // 1-based
+        return result;
+    }
+
+    /**
+     * Gets the number of iterations performed by the last run.
+     *
+     * @return Iteration count.
+     */
+    public int getIterations()
+    {
+        return iterations;
+    }
+
+    /**
+     * Gets the number of vertex-centroid distances computed by the last run
+     * (n * p per iteration without bounds).
+     *
+     * @return Distance evaluation count.
+     */
+    public long getDistanceEvaluations()
+    {
+        return distanceEvaluations;
+    }
+
+    /**
+     * Gets the sum of squared distances of all vertices to their assigned centroids after the last run.
+     * Lower is better; comparable between modes for the same embedding.
+     *
+     * @return Inertia.
+     */
+    public double getInertia()
+    {
+        return inertia;
+    }
+
+    /**
+     * Gets the centroids after the last run.
+     *
+     * @return Centroids, row-major [cluster * dimensions + dimension].
+     */
+    public double[] getCentroids()
+    {
+        return centroids;
+    }
+
+    /**
+     * Phase 1: nearest centroid of every vertex, in parallel over chunks.
+     */
+    private void assignNearest()
+    {
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            int[] counts = partialCounts[chunk];
+            Arrays.fill(counts, 0);
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                scanAll(i);
+                counts[nearest[i]]++;
+            }
+            partialEvaluations[chunk] = (long) (end - chunk * CHUNK_SIZE) * p;
+        });
+    }
+
+    /**
+     * Phase 1 with Hamerly bounds: only vertices whose bounds overlap are rescanned.
+     * Bounds were shifted by the centroid moves in {@link #measureCentroidMoves()}.
+     */
+    private void assignNearestBounded()
+    {
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            int[] counts = partialCounts[chunk];
+            Arrays.fill(counts, 0);
+            long evaluations = 0;
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                int a = nearest[i];
+                double bound = Math.max(halfGap[a], lower[i]);
+                if (upper[i] >= bound)
+                {
+                    // Tighten the upper bound before paying for a full scan
+                    double distance = squaredDistance(data, i * dimensions, centroids, a * dimensions, dimensions);
+                    evaluations++;
+                    upper[i] = Math.sqrt(distance);
+                    nearestDistance[i] = distance;
+                    exact[i] = true;
+                    if (upper[i] >= bound)
+                    {
+                        scanAll(i);
+                        evaluations += p;
+                    }
+                }
+                else
+                {
+                    exact[i] = false;
+                }
+                counts[nearest[i]]++;
+            }
+            partialEvaluations[chunk] = evaluations;
+        });
+    }
+
+    /**
+     * Finds the nearest centroid of vertex i (lowest index on ties) without touching any state.
+     *
+     * @param i Vertex index.
+     * @return Index of the nearest centroid.
+     */
+    private int nearestCentroid(int i)
+    {
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < p; c++)
+        {
+            double distance = squaredDistance(data, i * dimensions, centroids, c * dimensions, dimensions);
+            if (distance < bestDistance)
+            {
+                best = c;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Sum of squared distances of all vertices to their assigned centroid (parallel over chunks).
+     *
+     * @param means Centroids to measure against, row-major.
+     * @return Inertia of the current assignment.
+     */
+    private double inertia(double[] means)
+    {
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            double sum = 0.0;
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                sum += squaredDistance(data, i * dimensions, means, clusters[i] * dimensions, dimensions);
+            }
+            partialInertia[chunk] = sum;
+        });
+        double total = 0.0;
+        for (int chunk = 0; chunk < chunks; chunk++) total += partialInertia[chunk];
+        return total;
+    }
+
+    /**
+     * Computes the distance from vertex i to every centroid and stores its nearest centroid
+     * (lowest index on ties), the exact squared distance and, in bounded mode, fresh bounds.
+     *
+     * @param i Vertex index.
+     */
+    private void scanAll(int i)
+    {
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double secondDistance = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < p; c++)
+        {
+            double distance = squaredDistance(data, i * dimensions, centroids, c * dimensions, dimensions);
+            if (distance < bestDistance)
+            {
+                secondDistance = bestDistance;
+                best = c;
+                bestDistance = distance;
+            }
+            else if (distance < secondDistance)
+            {
+                secondDistance = distance;
+            }
+        }
+        nearest[i] = best;
+        nearestDistance[i] = bestDistance;
+        exact[i] = true;
+        if (upper != null)
+        {
+            upper[i] = Math.sqrt(bestDistance);
+            lower[i] = Math.sqrt(secondDistance);
+        }
+    }
+
+    /**
+     * Measures how far each centroid moved (centroids to newCentroids), shifts the bounds
+     * accordingly and recomputes the half gaps between the new centroids.
+     */
+    private void measureCentroidMoves()
+    {
+        int largest = 0;
+        double largestMove = 0.0;
+        double secondMove = 0.0;
+        for (int c = 0; c < p; c++)
+        {
+            moved[c] = Math.sqrt(squaredDistance(centroids, c * dimensions, newCentroids, c * dimensions, dimensions));
+            if (moved[c] > largestMove)
+            {
+                secondMove = largestMove;
+                largestMove = moved[c];
+                largest = c;
+            }
+            else if (moved[c] > secondMove)
+            {
+                secondMove = moved[c];
+            }
+        }
+
+        for (int c = 0; c < p; c++)
+        {
+            double closest = Double.POSITIVE_INFINITY;
+            for (int other = 0; other < p; other++)
+            {
+                if (other == c) continue;
+                closest = Math.min(closest, squaredDistance(newCentroids, c * dimensions, newCentroids, other * dimensions, dimensions));
+            }
+            halfGap[c] = 0.5 * Math.sqrt(closest);
+        }
+
+        // The nearest centroid may have moved away; any other centroid may have come closer
+        for (int i = 0; i < n; i++)
+        {
+            int a = nearest[i];
+            upper[i] += moved[a];
+            lower[i] -= (a == largest) ? secondMove : largestMove;
+        }
+    }
+
+    /**
+     * Phase 2: enforce cluster capacities.
+     * Overflowing clusters keep their closest members; evicted vertices (in index order)
+     * go to the nearest cluster that still has room.
+     */
+    private void resolveCapacities()
+    {
+        if (vertexWeights != null)
+        {
+            resolveWeightCapacities();
+            return;
+        }
+        Arrays.fill(clusterSizes, 0);
+        for (int chunk = 0; chunk < chunks; chunk++)
+        {
+            int[] counts = partialCounts[chunk];
+            for (int c = 0; c < p; c++) clusterSizes[c] += counts[c];
+        }
+        System.arraycopy(nearest, 0, clusters, 0, n);
+
+        boolean overflow = false;
+        for (int c = 0; c < p; c++)
+        {
+            if (clusterSizes[c] > capacity[c])
+            {
+                overflow = true;
+                break;
+            }
+        }
+        if (!overflow) return;
+
+        // Ranking needs exact distances of members of overflowing clusters
+        for (int i = 0; i < n; i++)
+        {
+            if (!exact[i] && clusterSizes[nearest[i]] > capacity[nearest[i]])
+            {
+                nearestDistance[i] = squaredDistance(data, i * dimensions, centroids, nearest[i] * dimensions, dimensions);
+                exact[i] = true;
+                distanceEvaluations++;
+            }
+        }
+
+        // Bucket vertices by nearest cluster (counting sort keeps index order)
+        memberStart[0] = 0;
+        for (int c = 0; c < p; c++) memberStart[c + 1] = memberStart[c] + clusterSizes[c];
+        for (int i = n - 1; i >= 0; i--) members[--memberStart[nearest[i] + 1]] = i;
+        for (int c = 0; c < p; c++) memberStart[c + 1] = memberStart[c] + clusterSizes[c];
+
+        // Overflowing clusters keep the closest members up to capacity
+        int evictedCount = 0;
+        for (int c = 0; c < p; c++)
+        {
+            if (clusterSizes[c] <= capacity[c]) continue;
+            IndexSort.selectByKey(members, nearestDistance, memberStart[c], memberStart[c + 1], capacity[c]);
+            for (int k = memberStart[c] + capacity[c]; k < memberStart[c + 1]; k++)
+            {
+                evicted[evictedCount++] = members[k];
+            }
+            clusterSizes[c] = capacity[c];
+        }
+        Arrays.sort(evicted, 0, evictedCount);
+
+        // Evicted vertices go to the nearest cluster with free capacity
+        for (int k = 0; k < evictedCount; k++)
+        {
+            int i = evicted[k];
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < p; c++)
+            {
+                if (clusterSizes[c] >= capacity[c]) continue;
+                double distance = squaredDistance(data, i * dimensions, centroids, c * dimensions, dimensions);
+                if (distance < bestDistance || best == -1)
+                {
+                    best = c;
+                    bestDistance = distance;
+                }
+            }
+            clusters[i] = best;
+            clusterSizes[best]++;
+        }
+    }
+
+    /**
+     * Phase 2 with vertex weights: enforce the weight capacity.
+     * Overflowing clusters keep their closest members as long as they fit; evicted vertices (in index order)
+     * go to the nearest cluster with room for them, or to the lightest cluster if none has.
+     */
+    private void resolveWeightCapacities()
+    {
+        Arrays.fill(clusterSizes, 0);
+        Arrays.fill(clusterWeights, 0);
+        for (int i = 0; i < n; i++)
+        {
+            clusterSizes[nearest[i]]++;
+            clusterWeights[nearest[i]] += vertexWeights[i];
+        }
+        System.arraycopy(nearest, 0, clusters, 0, n);
+
+        boolean overflow = false;
+        for (int c = 0; c < p; c++)
+        {
+            if (clusterWeights[c] > weightCapacity)
+            {
+                overflow = true;
+                break;
+            }
+        }
+        if (!overflow) return;
+
+        // Ranking needs exact distances of members of overflowing clusters
+        for (int i = 0; i < n; i++)
+        {
+            if (!exact[i] && clusterWeights[nearest[i]] > weightCapacity)
+            {
+                nearestDistance[i] = squaredDistance(data, i * dimensions, centroids, nearest[i] * dimensions, dimensions);
+                exact[i] = true;
+                distanceEvaluations++;
+            }
+        }
+
+        // Bucket vertices by nearest cluster (counting sort keeps index order)
+        memberStart[0] = 0;
+        for (int c = 0; c < p; c++) memberStart[c + 1] = memberStart[c] + clusterSizes[c];
+        for (int i = n - 1; i >= 0; i--) members[--memberStart[nearest[i] + 1]] = i;
+        for (int c = 0; c < p; c++) memberStart[c + 1] = memberStart[c] + clusterSizes[c];
+
+        // Overflowing clusters keep the closest members that fit
+        int evictedCount = 0;
+        for (int c = 0; c < p; c++)
+        {
+            if (clusterWeights[c] <= weightCapacity) continue;
+            IndexSort.sortByKey(members, nearestDistance, memberStart[c], memberStart[c + 1]);
+            clusterWeights[c] = 0;
+            for (int k = memberStart[c]; k < memberStart[c + 1]; k++)
+            {
+                int i = members[k];
+                if (clusterWeights[c] + vertexWeights[i] <= weightCapacity)
+                {
+                    clusterWeights[c] += vertexWeights[i];
+                }
+                else
+                {
+                    evicted[evictedCount++] = i;
+                    clusterSizes[c]--;
+                }
+            }
+        }
+        Arrays.sort(evicted, 0, evictedCount);
+
+        // Evicted vertices go to the nearest cluster with room, else to the lightest one
+        for (int k = 0; k < evictedCount; k++)
+        {
+            int i = evicted[k];
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            int lightest = 0;
+            for (int c = 0; c < p; c++)
+            {
+                if (clusterWeights[c] < clusterWeights[lightest]) lightest = c;
+                if (clusterWeights[c] + vertexWeights[i] > weightCapacity) continue;
+                double distance = squaredDistance(data, i * dimensions, centroids, c * dimensions, dimensions);
+                if (distance < bestDistance || best == -1)
+                {
+                    best = c;
+                    bestDistance = distance;
+                }
+            }
+            if (best == -1) best = lightest;
+            clusters[i] = best;
+            clusterSizes[best]++;
+            clusterWeights[best] += vertexWeights[i];
+        }
+    }
+
+    /**
+     * Phase 3: recompute centroids from per-chunk partial sums (parallel), merged in chunk order.
+     */
+    private void updateCentroids()
+    {
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            double[] sums = partialSums[chunk];
+            Arrays.fill(sums, 0.0);
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < end; i++)
+            {
+                int offset = clusters[i] * dimensions;
+                for (int j = 0; j < dimensions; j++)
+                {
+                    sums[offset + j] += data[i * dimensions + j];
+                }
+            }
+        });
+
+        Arrays.fill(newCentroids, 0.0);
+        for (int chunk = 0; chunk < chunks; chunk++)
+        {
+            double[] sums = partialSums[chunk];
+            for (int k = 0; k < p * dimensions; k++) newCentroids[k] += sums[k];
+        }
+        for (int c = 0; c < p; c++)
+        {
+            // Capacities are exact, so every cluster is non-empty (with weights an empty cluster keeps its centroid)
+            int memberCount = vertexWeights != null ? clusterSizes[c] : capacity[c];
+            for (int j = 0; j < dimensions; j++)
+            {
+                if (memberCount > 0) newCentroids[c * dimensions + j] /= memberCount;
+                else newCentroids[c * dimensions + j] = centroids[c * dimensions + j];
+            }
+        }
+    }
+
+    /**
+     * Chooses initial centroids with k-means++ (D^2 sampling): the first centroid is a random
+     * vertex, each next one is a vertex drawn with probability proportional to its squared
+     * distance from the closest centroid chosen so far.
+     *
+     * @param data Data points (vertices), row-major [vertex * dimensions + dimension].
+     * @param dimensions Number of dimensions.
+     * @param p Number of clusters.
+     * @param random Random source (seeded for reproducible results).
+     * @return Initialized centroids, row-major [cluster * dimensions + dimension].
+     */
+    public static double[] kMeansPlusPlusCentroids(double[] data, int dimensions, int p, Random random)
+    {
+        int n = data.length / dimensions;
+        double[] centroids = new double[p * dimensions];
+        double[] minDistance = new double[n];
+
+        int first = random.nextInt(n);
+        System.arraycopy(data, first * dimensions, centroids, 0, dimensions);
+        double total = 0.0;
+        for (int i = 0; i < n; i++)
+        {
+            minDistance[i] = squaredDistance(data, i * dimensions, centroids, 0, dimensions);
+            total += minDistance[i];
+        }
+
+        for (int c = 1; c < p; c++)
+        {
+            // Draw a vertex proportionally to its squared distance (uniformly if all coincide)
+            int chosen = n - 1;
+            if (total > 0.0)
+            {
+                double threshold = random.nextDouble() * total;
+                double cumulative = 0.0;
+                for (int i = 0; i < n; i++)
+                {
+                    cumulative += minDistance[i];
+                    if (cumulative > threshold)
+                    {
+                        chosen = i;
+                        break;
+                    }
+                }
+            }
+            else
+            {
+                chosen = random.nextInt(n);
+            }
+            System.arraycopy(data, chosen * dimensions, centroids, c * dimensions, dimensions);
+
+            total = 0.0;
+            for (int i = 0; i < n; i++)
+            {
+                double distance = squaredDistance(data, i * dimensions, centroids, c * dimensions, dimensions);
+                if (distance < minDistance[i]) minDistance[i] = distance;
+                total += minDistance[i];
+            }
+        }
+        return centroids;
+    }
+
+    /**
+     * Computes the squared Euclidean distance between two vectors stored in flat arrays.
+     * Squared distances order points the same way as distances, without the square root.
+     *
+     * @param a First array.
+     * @param aOffset Offset of the first vector in a.
+     * @param b Second array.
+     * @param bOffset Offset of the second vector in b.
+     * @param dimensions Vector length.
+     * @return Squared Euclidean distance.
+     */
+    static double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int dimensions)
+    {
+        double sum = 0.0;
+        for (int i = 0; i < dimensions; i++)
+        {
+            double diff = a[aOffset + i] - b[bOffset + i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+}
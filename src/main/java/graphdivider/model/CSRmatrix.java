@@ -1,36 +1,127 @@
 package graphdivider.model;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 /**
  * Sparse matrix in Compressed Sparse Row (CSR) format.
  * Used for efficient storage and operations on sparse graphs.
+ * Column indices are ascending within every row: rows built out of order are sorted (with their values)
+ * on construction, so lookups can binary search a row.
  *
  * @param rowPtr Row pointers array.
  * @param colInd Column indices array.
  * @param values Values array.
  * @param size Number of rows (and columns, for square matrices).
  */
-public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
+public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size) implements SparseMatrix
 {
+    // Rows per parallel work unit
+    private static final int CHUNK_SIZE = 4096;
+
     /**
-     * Gets the value at the specified (row, col) position.
+     * Validates the row pointers and sorts every row whose column indices are out of order.
      *
-     * @param row Row index.
-     * @param col Column index.
-     * @return Value at (row, col), or 0 if not present.
-     * @throws IndexOutOfBoundsException if row or col is out of bounds.
+     * @throws IllegalArgumentException if rowPtr does not have size + 1 non-decreasing entries
+     *                                  or colInd and values do not match its last entry.
+     */
+    public CSRmatrix
+    {
+        if (rowPtr.length != size + 1 || rowPtr[0] != 0 || colInd.length != rowPtr[size] || values.length != rowPtr[size])
+        {
+            throw new IllegalArgumentException("Inconsistent CSR arrays: size " + size + ", rowPtr " + rowPtr.length
+                    + ", colInd " + colInd.length + ", values " + values.length + ".");
+        }
+        for (int row = 0; row < size; row++)
+        {
+            if (rowPtr[row + 1] < rowPtr[row])
+            {
+                throw new IllegalArgumentException("Row pointers decrease at row " + row + ".");
+            }
+            for (int idx = rowPtr[row] + 1; idx < rowPtr[row + 1]; idx++)
+            {
+                if (colInd[idx] < colInd[idx - 1])
+                {
+                    sortRow(colInd, values, rowPtr[row], rowPtr[row + 1]);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts colInd[from, to) ascending, moving values along (stable, so repeated columns keep their order).
+     *
+     * @param colInd Column indices.
+     * @param values Values.
+     * @param from First entry of the row (inclusive).
+     * @param to Last entry of the row (exclusive).
+     */
+    private static void sortRow(int[] colInd, int[] values, int from, int to)
+    {
+        // Column in the high half, original position in the low half
+        long[] keys = new long[to - from];
+        for (int idx = from; idx < to; idx++) keys[idx - from] = ((long) colInd[idx] << 32) | (idx - from);
+        Arrays.sort(keys);
+        int[] rowValues = Arrays.copyOfRange(values, from, to);
+        for (int k = 0; k < keys.length; k++)
+        {
+            colInd[from + k] = (int) (keys[k] >>> 32);
+            values[from + k] = rowValues[(int) keys[k]];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Binary search over the sorted row, O(log d) for a row with d entries.
+     * Columns are not bounded by size: a group-indexed matrix (see {@link GraphLoader#toCSRmatrix}) has fewer rows
+     * than columns.
      */
+    @Override
     public int getValue(int row, int col)
     {
-        // Search non-zero values in row
+        if (col < 0)
+        {
+            throw new IndexOutOfBoundsException("Column index out of bounds: " + col);
+        }
+        int idx = Arrays.binarySearch(colInd, rowPtr[row], rowPtr[row + 1], col);
+        // Zero if not found
+        return idx >= 0 ? values[idx] : 0;
+    }
+
+    @Override
+    public int nonZeros()
+    {
+        return rowPtr[size];
+    }
+
+    @Override
+    public int rowLength(int row)
+    {
+        return rowPtr[row + 1] - rowPtr[row];
+    }
+
+    @Override
+    public <E extends Exception> void forEachInRow(int row, RowVisitor<E> visitor) throws E
+    {
         for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
         {
-            if (colInd[idx] == col)
+            visitor.visit(colInd[idx], values[idx]);
+        }
+    }
+
+    @Override
+    public void multiply(double[] x, int xOffset, double[] y, int yOffset)
+    {
+        for (int row = 0; row < size; row++)
+        {
+            double sum = 0.0;
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
             {
-                return values[idx];
+                sum += values[idx] * x[xOffset + colInd[idx]];
             }
+            y[yOffset + row] = sum;
         }
-        // Zero if not found
-        return 0;
     }
 
     /**
@@ -91,23 +182,23 @@ public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
 
         System.out.println(color + title + ANSI_RESET);
 
-        // Find max width for alignment
-        int maxWidth = 0;
-        for (int row = 0; row < size; row++)
+        // Find max width for alignment (implicit zeros are one character wide)
+        int maxWidth = 1;
+        for (int value : values)
         {
-            for (int col = 0; col < size; col++)
-            {
-                maxWidth = Math.max(maxWidth, String.valueOf(getValue(row, col)).length());
-            }
+            maxWidth = Math.max(maxWidth, String.valueOf(value).length());
         }
 
+        int[] dense = new int[size];
         for (int row = 0; row < size; row++)
         {
+            Arrays.fill(dense, 0);
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++) dense[colInd[idx]] = values[idx];
             System.out.print(color + "\t[");
             for (int col = 0; col < size; col++)
             {
                 // Print value with spacing
-                System.out.printf("%" + maxWidth + "d", getValue(row, col));
+                System.out.printf("%" + maxWidth + "d", dense[col]);
                 if (col < size - 1) System.out.print(", ");
             }
             System.out.println("]" + ANSI_RESET);
@@ -117,7 +208,8 @@ public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
     /**
      * Masks edges that are not cut by clusters, keeping only intra-cluster edges.
      * Returns a new CSRmatrix with only edges where both vertices are in the same cluster.
-     * Also prints the resulting adjacency matrix.
+     * Two passes over primitive arrays, each parallel over row ranges: the kept entries of every row
+     * are counted, the row pointers are prefix-summed, then every row range fills its own slice.
      *
      * @param original The original CSRmatrix.
      * @param clusters Array of cluster indices for each vertex.
@@ -126,37 +218,132 @@ public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
     public static CSRmatrix maskCutEdges(CSRmatrix original, int[] clusters)
     {
         int size = original.size();
+        int[] oldRowPtr = original.rowPtr();
+        int[] oldColInd = original.colInd();
+        int[] oldValues = original.values();
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        // Pass 1: kept entries per row (stored one slot ahead for the prefix sum)
         int[] rowPtr = new int[size + 1];
-        // Use dynamic lists to build new colInd and values
-        java.util.List<Integer> newColInd = new java.util.ArrayList<>();
-        java.util.List<Integer> newValues = new java.util.ArrayList<>();
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+            for (int row = chunk * CHUNK_SIZE; row < end; row++)
+            {
+                int kept = 0;
+                for (int idx = oldRowPtr[row]; idx < oldRowPtr[row + 1]; idx++)
+                {
+                    if (clusters[row] == clusters[oldColInd[idx]]) kept++;
+                }
+                rowPtr[row + 1] = kept;
+            }
+        });
+        for (int row = 0; row < size; row++) rowPtr[row + 1] += rowPtr[row];
 
-        int nnz = 0;
-        for (int row = 0; row < size; row++)
+        // Pass 2: every row range writes its own slice
+        int[] colInd = new int[rowPtr[size]];
+        int[] values = new int[rowPtr[size]];
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
         {
-            rowPtr[row] = nnz;
-            for (int idx = original.rowPtr()[row]; idx < original.rowPtr()[row + 1]; idx++)
+            int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+            for (int row = chunk * CHUNK_SIZE; row < end; row++)
             {
-                int col = original.colInd()[idx];
-                int val = original.values()[idx];
-                // Only keep edge if both vertices are in the same cluster
-                if (clusters[row] == clusters[col])
+                int fill = rowPtr[row];
+                for (int idx = oldRowPtr[row]; idx < oldRowPtr[row + 1]; idx++)
                 {
-                    newColInd.add(col);
-                    newValues.add(val);
-                    nnz++;
+                    int col = oldColInd[idx];
+                    // Only keep edge if both vertices are in the same cluster
+                    if (clusters[row] != clusters[col]) continue;
+                    colInd[fill] = col;
+                    values[fill++] = oldValues[idx];
                 }
             }
-        }
-        rowPtr[size] = nnz;
+        });
+        return new CSRmatrix(rowPtr, colInd, values, size);
+    }
 
-        // Convert lists to arrays
-        int[] colIndArr = newColInd.stream().mapToInt(i -> i).toArray();
-        int[] valuesArr = newValues.stream().mapToInt(i -> i).toArray();
+    /**
+     * One part of a partition as a standalone graph.
+     *
+     * @param vertices Original index of each local vertex (ascending).
+     * @param subgraph Subgraph induced by the part, indexed by local vertex.
+     */
+    public record InducedPart(int[] vertices, CSRmatrix subgraph) {}
 
-        CSRmatrix masked = new CSRmatrix(rowPtr, colIndArr, valuesArr, size);
-        masked.printAdjacency();
-        return masked;
+    /**
+     * Splits a partitioned graph into the subgraphs induced by its parts.
+     * One counting sort gives every vertex its local index within its part, so all parts are built
+     * with O(n + nnz) work in total (in parallel over parts) instead of one full scan per part.
+     *
+     * @param original Symmetric vertex-indexed CSRmatrix.
+     * @param clusters Cluster index (1..p) of each vertex.
+     * @param p Number of parts.
+     * @return Induced part per cluster (index c - 1 for cluster c); parts may be empty.
+     * @throws IllegalArgumentException if clusters does not match the matrix or holds an index outside 1..p.
+     */
+    public static InducedPart[] inducedParts(CSRmatrix original, int[] clusters, int p)
+    {
+        int n = original.size();
+        if (clusters.length != n)
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length + " does not match matrix size " + n + ".");
+        }
+        int[] partStart = new int[p + 1];
+        for (int v = 0; v < n; v++)
+        {
+            if (clusters[v] < 1 || clusters[v] > p)
+            {
+                throw new IllegalArgumentException("Cluster index " + clusters[v] + " of vertex " + v + " is outside 1.." + p + ".");
+            }
+            partStart[clusters[v]]++;
+        }
+        for (int c = 0; c < p; c++) partStart[c + 1] += partStart[c];
+        int[] order = new int[n];
+        int[] local = new int[n];
+        int[] fill = Arrays.copyOf(partStart, p);
+        for (int v = 0; v < n; v++)
+        {
+            int c = clusters[v] - 1;
+            local[v] = fill[c] - partStart[c];
+            order[fill[c]++] = v;
+        }
+
+        int[] oldRowPtr = original.rowPtr();
+        int[] oldColInd = original.colInd();
+        int[] oldValues = original.values();
+        InducedPart[] parts = new InducedPart[p];
+        IntStream.range(0, p).parallel().forEach(c ->
+        {
+            int[] vertices = Arrays.copyOfRange(order, partStart[c], partStart[c + 1]);
+            int cluster = c + 1;
+            int[] rowPtr = new int[vertices.length + 1];
+            for (int k = 0; k < vertices.length; k++)
+            {
+                int v = vertices[k];
+                int kept = 0;
+                for (int idx = oldRowPtr[v]; idx < oldRowPtr[v + 1]; idx++)
+                {
+                    if (clusters[oldColInd[idx]] == cluster) kept++;
+                }
+                rowPtr[k + 1] = rowPtr[k] + kept;
+            }
+            int[] colInd = new int[rowPtr[vertices.length]];
+            int[] values = new int[rowPtr[vertices.length]];
+            for (int k = 0; k < vertices.length; k++)
+            {
+                int v = vertices[k];
+                int next = rowPtr[k];
+                for (int idx = oldRowPtr[v]; idx < oldRowPtr[v + 1]; idx++)
+                {
+                    int u = oldColInd[idx];
+                    if (clusters[u] != cluster) continue;
+                    colInd[next] = local[u];
+                    values[next++] = oldValues[idx];
+                }
+            }
+            parts[c] = new InducedPart(vertices, new CSRmatrix(rowPtr, colInd, values, vertices.length));
+        });
+        return parts;
     }
 
     // --- Getters for matrix data ---
@@ -187,24 +374,4 @@ public record CSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
     {
         return size;
     }
-
-    /**
-     * Gets the adjacency (column indices) for a given row.
-     *
-     * @param i Row index.
-     * @return Array of adjacent column indices for row i.
-     * @throws IndexOutOfBoundsException if i is out of bounds.
-     */
-    public int[] getAdjacencyForRow(int i)
-    {
-        if (i < 0 || i >= size)
-        {
-            throw new IndexOutOfBoundsException("Row index out of bounds: " + i);
-        }
-        int start = rowPtr[i];
-        int end = rowPtr[i + 1];
-        int[] adjacency = new int[end - start];
-        System.arraycopy(colInd, start, adjacency, 0, end - start);
-        return adjacency;
-    }
 }
@@ -0,0 +1,49 @@
+package graphdivider.model;
+
+/**
+ * Settings for the k-means stage of spectral clustering.
+ *
+ * @param seed Random seed for k-means++ seeding (same seed gives the same partition).
+ * @param restarts Number of independent k-means runs; the one with the smallest edge cut is kept.
+ * @param mode Nearest-centroid strategy used by k-means.
+ */
+public record ClusteringOptions(long seed, int restarts, KMeansMode mode)
+{
+    /**
+     * Validates the options.
+     *
+     * @throws IllegalArgumentException if restarts is not positive or mode is null.
+     */
+    public ClusteringOptions
+    {
+        if (restarts <= 0)
+        {
+            throw new IllegalArgumentException("Number of restarts must be positive: " + restarts);
+        }
+        if (mode == null)
+        {
+            throw new IllegalArgumentException("K-means mode must not be null.");
+        }
+    }
+
+    /**
+     * Creates options with the default (bounded) k-means mode.
+     *
+     * @param seed Random seed for k-means++ seeding.
+     * @param restarts Number of independent k-means runs.
+     */
+    public ClusteringOptions(long seed, int restarts)
+    {
+        this(seed, restarts, KMeansMode.HAMERLY);
+    }
+
+    /**
+     * Gets the default options (seed 0, 4 restarts, Hamerly bounds).
+     *
+     * @return Default ClusteringOptions.
+     */
+    public static ClusteringOptions defaults()
+    {
+        return new ClusteringOptions(0L, 4);
+    }
+}
@@ -0,0 +1,364 @@
+package graphdivider.model;
+
+/**
+ * Sparse matrix in CSR format with gap-encoded column indices.
+ * The sorted columns of every row are stored as variable-length bytes (7 bits per byte, high bit set
+ * while more bytes follow): the first column as a zigzag-encoded offset from the row index, every
+ * further column as the gap to the previous one. With a locality-friendly vertex ordering most offsets
+ * and gaps fit in one byte, against four for an int. Values are dropped entirely when they are all 1
+ * (an unweighted graph), and so are the entry offsets of the rows, which only index the values:
+ * the row lengths follow from the bytes, since every encoded column ends with a byte whose high bit is clear.
+ * Rows are decoded on the fly through a {@link RowCursor}; the matrix is never expanded as a whole.
+ */
+public final class CompressedCSRmatrix implements SparseMatrix
+{
+    // Byte offset of the first encoded column of each row (size + 1)
+    private final int[] bytePtr;
+    // Encoded column indices
+    private final byte[] columns;
+    // Entry index of the first entry of each row (size + 1), or null if every value is 1
+    private final int[] entryPtr;
+    // Value of each entry, or null if every value is 1
+    private final int[] values;
+    // Number of rows
+    private final int size;
+    // Number of stored entries
+    private final int nonZeros;
+
+    /**
+     * Creates a matrix from already encoded data (see {@link #compress}).
+     *
+     * @param bytePtr Byte offset of the first encoded column of each row.
+     * @param columns Encoded column indices.
+     * @param entryPtr Entry index of the first entry of each row, or null if every value is 1.
+     * @param values Value of each entry, or null if every value is 1.
+     * @param size Number of rows.
+     * @param nonZeros Number of stored entries.
+     */
+    private CompressedCSRmatrix(int[] bytePtr, byte[] columns, int[] entryPtr, int[] values, int size, int nonZeros)
+    {
+        this.bytePtr = bytePtr;
+        this.columns = columns;
+        this.entryPtr = entryPtr;
+        this.values = values;
+        this.size = size;
+        this.nonZeros = nonZeros;
+    }
+
+    /**
+     * Encodes a CSR matrix.
+     *
+     * @param matrix Matrix with sorted rows.
+     * @return Compressed copy of the matrix.
+     */
+    public static CompressedCSRmatrix compress(CSRmatrix matrix)
+    {
+        int n = matrix.size();
+        int[] rowPtr = matrix.rowPtr();
+        int[] colInd = matrix.colInd();
+
+        // Pass 1: encoded length of every row
+        int[] bytePtr = new int[n + 1];
+        for (int row = 0; row < n; row++)
+        {
+            int length = 0;
+            int previous = row;
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
+            {
+                length += encodedLength(idx == rowPtr[row] ? zigzag(colInd[idx] - row) : colInd[idx] - previous);
+                previous = colInd[idx];
+            }
+            bytePtr[row + 1] = bytePtr[row] + length;
+        }
+
+        // Pass 2: encode
+        byte[] columns = new byte[bytePtr[n]];
+        for (int row = 0; row < n; row++)
+        {
+            int position = bytePtr[row];
+            int previous = row;
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
+            {
+                position = encode(idx == rowPtr[row] ? zigzag(colInd[idx] - row) : colInd[idx] - previous, columns, position);
+                previous = colInd[idx];
+            }
+        }
+
+        boolean unit = true;
+        for (int value : matrix.values())
+        {
+            if (value != 1)
+            {
+                unit = false;
+                break;
+            }
+        }
+        return unit
+                ? new CompressedCSRmatrix(bytePtr, columns, null, null, n, rowPtr[n])
+                : new CompressedCSRmatrix(bytePtr, columns, rowPtr.clone(), matrix.values().clone(), n, rowPtr[n]);
+    }
+
+    /**
+     * Decodes the whole matrix back to plain CSR.
+     *
+     * @return Equivalent CSRmatrix.
+     */
+    public CSRmatrix decompress()
+    {
+        int[] rowPtr = new int[size + 1];
+        int[] colInd = new int[nonZeros];
+        int[] expandedValues = new int[nonZeros];
+        RowCursor cursor = cursor();
+        int fill = 0;
+        for (int row = 0; row < size; row++)
+        {
+            cursor.start(row);
+            while (cursor.hasNext())
+            {
+                colInd[fill] = cursor.next();
+                expandedValues[fill++] = cursor.value();
+            }
+            rowPtr[row + 1] = fill;
+        }
+        return new CSRmatrix(rowPtr, colInd, expandedValues, size);
+    }
+
+    /**
+     * Hands out a cursor over the rows of this matrix. A cursor can be restarted on any number of rows,
+     * so loops that visit many rows decode them without allocating. Each thread needs its own cursor.
+     *
+     * @return New cursor, positioned on no row.
+     */
+    public RowCursor cursor()
+    {
+        return new RowCursor();
+    }
+
+    /**
+     * Gets the heap used by the arrays of this matrix.
+     *
+     * @return Size of the row pointers, encoded columns and values in bytes.
+     */
+    public long memoryBytes()
+    {
+        return 4L * bytePtr.length + columns.length
+                + (entryPtr != null ? 4L * entryPtr.length : 0) + (values != null ? 4L * values.length : 0);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public int nonZeros()
+    {
+        return nonZeros;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Counts the final bytes of the encoded columns, O(d) for a row with d entries.
+     */
+    @Override
+    public int rowLength(int row)
+    {
+        if (entryPtr != null) return entryPtr[row + 1] - entryPtr[row];
+        int length = 0;
+        for (int position = bytePtr[row]; position < bytePtr[row + 1]; position++)
+        {
+            if (columns[position] >= 0) length++;
+        }
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Decodes the row up to the column with a short-lived cursor, O(d) for a row with d entries.
+     */
+    @Override
+    public int getValue(int row, int col)
+    {
+        if (col < 0)
+        {
+            throw new IndexOutOfBoundsException("Column index out of bounds: " + col);
+        }
+        RowCursor cursor = cursor();
+        cursor.start(row);
+        while (cursor.hasNext())
+        {
+            int current = cursor.next();
+            if (current == col) return cursor.value();
+            // Sorted row: the column cannot come later
+            if (current > col) break;
+        }
+        // Zero if not found
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Uses one short-lived cursor per call; loops over many rows can share one from {@link #cursor()} instead.
+     */
+    @Override
+    public <E extends Exception> void forEachInRow(int row, RowVisitor<E> visitor) throws E
+    {
+        RowCursor cursor = cursor();
+        cursor.start(row);
+        while (cursor.hasNext())
+        {
+            int col = cursor.next();
+            visitor.visit(col, cursor.value());
+        }
+    }
+
+    @Override
+    public void multiply(double[] x, int xOffset, double[] y, int yOffset)
+    {
+        RowCursor cursor = cursor();
+        for (int row = 0; row < size; row++)
+        {
+            cursor.start(row);
+            double sum = 0.0;
+            while (cursor.hasNext())
+            {
+                int col = cursor.next();
+                sum += cursor.value() * x[xOffset + col];
+            }
+            y[yOffset + row] = sum;
+        }
+    }
+
+    /**
+     * Streams the columns of one row at a time out of the encoded bytes; the only place that decodes the format.
+     * One cursor can be restarted on any number of rows (see {@link #cursor()}).
+     */
+    public final class RowCursor
+    {
+        // Byte offset of the next encoded column and end of the row
+        private int position;
+        private int end;
+        // Entry index of the last decoded entry (for its value)
+        private int idx;
+        // Row being decoded and last decoded column
+        private int row;
+        private int col;
+
+        private RowCursor()
+        {
+        }
+
+        /**
+         * Positions the cursor before the first entry of a row.
+         *
+         * @param row Row index.
+         * @throws IndexOutOfBoundsException if row is out of bounds.
+         */
+        public void start(int row)
+        {
+            this.position = bytePtr[row];
+            this.end = bytePtr[row + 1];
+            this.idx = entryPtr != null ? entryPtr[row] - 1 : -1;
+            this.row = row;
+            this.col = row;
+        }
+
+        /**
+         * Checks whether the row has more entries.
+         *
+         * @return True if {@link #next()} can be called.
+         */
+        public boolean hasNext()
+        {
+            return position < end;
+        }
+
+        /**
+         * Decodes the next column of the row.
+         *
+         * @return Column index.
+         */
+        public int next()
+        {
+            boolean first = position == bytePtr[row];
+            int code = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = columns[position++];
+                code |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            col = first ? row + unzigzag(code) : col + code;
+            idx++;
+            return col;
+        }
+
+        /**
+         * Gets the value of the entry last returned by {@link #next()}.
+         *
+         * @return Stored value.
+         */
+        public int value()
+        {
+            return values != null ? values[idx] : 1;
+        }
+    }
+
+    /**
+     * Maps a signed offset to an unsigned code (0, -1, 1, -2, ... to 0, 1, 2, 3, ...).
+     *
+     * @param offset Signed offset.
+     * @return Zigzag code.
+     */
+    private static int zigzag(int offset)
+    {
+        return (offset << 1) ^ (offset >> 31);
+    }
+
+    /**
+     * Reverses {@link #zigzag(int)}.
+     *
+     * @param code Zigzag code.
+     * @return Signed offset.
+     */
+    private static int unzigzag(int code)
+    {
+        return (code >>> 1) ^ -(code & 1);
+    }
+
+    /**
+     * Gets the number of bytes needed to encode a code.
+     *
+     * @param code Non-negative code.
+     * @return Encoded length (1 to 5 bytes).
+     */
+    private static int encodedLength(int code)
+    {
+        int length = 1;
+        while ((code >>>= 7) != 0) length++;
+        return length;
+    }
+
+    /**
+     * Writes a code as variable-length bytes.
+     *
+     * @param code Code to write (treated as unsigned).
+     * @param out Output array.
+     * @param position Offset to write at.
+     * @return Offset after the written bytes.
+     */
+    private static int encode(int code, byte[] out, int position)
+    {
+        while ((code & ~0x7F) != 0)
+        {
+            out[position++] = (byte) ((code & 0x7F) | 0x80);
+            code >>>= 7;
+        }
+        out[position++] = (byte) code;
+        return position;
+    }
+}
@@ -0,0 +1,182 @@
+package graphdivider.model;
+
+/**
+ * Geometric partitioning engine: recursive coordinate bisection over the vertex layout of the
+ * graph file (column from rowPositions, row from rowStartIndices).
+ * Every step splits a range of vertices along its longer axis so that the two halves get sizes
+ * proportional to the number of parts each will hold (p / 2 and p - p / 2), using quickselect.
+ * The result is exactly balanced in O(n log p) without an eigen solve (with vertex weights, each range is
+ * sorted and split where the weight is closest to proportional, in O(n log n log p)); the engine then refines
+ * the boundary within the margin ({@link KWayRefinement}).
+ * The plain bisection is also available as the initial guess for other code
+ * (e.g. {@link StartVector#BISECTION}).
+ */
+public final class CoordinateBisection implements Partitioner
+{
+    /**
+     * Creates the engine (used by {@link java.util.ServiceLoader}).
+     */
+    public CoordinateBisection() {}
+
+    @Override
+    public String getId()
+    {
+        return "coordinate-bisection";
+    }
+
+    @Override
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? "Bisekcja współrzędnych" : "Coordinate bisection";
+    }
+
+    @Override
+    public boolean needsLayout()
+    {
+        return true;
+    }
+
+    @Override
+    public PartitionResult partition(PartitionRequest request, JobControl job)
+    {
+        long start = System.nanoTime();
+        if (request.model() == null)
+        {
+            throw new IllegalArgumentException("Coordinate bisection needs the graph layout (GraphModel).");
+        }
+        int p = request.parts();
+        int[] clusters = partition(request.model(), request.adjacency().size(), p, request.vertexWeights());
+        int unrefinedEdgesCut = GraphClusterization.calculateEdgesCut(request.adjacency(), clusters);
+        System.out.println("[CoordinateBisection] Bisection edges cut " + unrefinedEdgesCut + " in "
+                + (System.nanoTime() - start) / 1_000_000L + " ms");
+        GraphClusterization.refinePartition(request.adjacency(), clusters, p, request.vertexWeights(), request.marginPercent(), job);
+        return PartitionResult.of(getId(), request, clusters, unrefinedEdgesCut, start);
+    }
+
+    /**
+     * Partitions the vertices of a graph by recursive coordinate bisection of its layout.
+     *
+     * @param model Graph model with layout data.
+     * @param n Number of vertices.
+     * @param p Number of parts.
+     * @return Array of cluster indices (1-based) for each vertex; part sizes differ by at most one.
+     * @throws IllegalArgumentException if p is not between 1 and n.
+     */
+    public static int[] partition(GraphModel model, int n, int p)
+    {
+        return partition(model, n, p, null);
+    }
+
+    /**
+     * Partitions the vertices of a graph by recursive coordinate bisection of its layout,
+     * balancing the total vertex weight of the parts.
+     *
+     * @param model Graph model with layout data.
+     * @param n Number of vertices.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for equal part sizes.
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws IllegalArgumentException if p is not between 1 and n.
+     */
+    public static int[] partition(GraphModel model, int n, int p, int[] vertexWeights)
+    {
+        if (p < 1 || p > n)
+        {
+            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure 1 <= p <= n.");
+        }
+        double[][] coordinates = StartVector.vertexCoordinates(model, n);
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) index[i] = i;
+        int[] clusters = new int[n];
+        bisect(coordinates[0], coordinates[1], vertexWeights, index, 0, n, 1, p, clusters);
+        return clusters;
+    }
+
+    /**
+     * Splits index[from, to) into parts firstPart .. firstPart + p - 1.
+     *
+     * @param x Column of each vertex.
+     * @param y Row of each vertex.
+     * @param weights Weight of each vertex, or null to split by count.
+     * @param index Vertex indices (reordered in place).
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     * @param firstPart Cluster index (1-based) of the first part in this range.
+     * @param p Number of parts for this range.
+     * @param clusters Output cluster indices.
+     */
+    private static void bisect(double[] x, double[] y, int[] weights, int[] index, int from, int to, int firstPart, int p, int[] clusters)
+    {
+        if (p == 1)
+        {
+            for (int k = from; k < to; k++) clusters[index[k]] = firstPart;
+            return;
+        }
+
+        // Longer axis of the bounding box
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int k = from; k < to; k++)
+        {
+            int v = index[k];
+            minX = Math.min(minX, x[v]);
+            maxX = Math.max(maxX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+        double[] key = maxX - minX >= maxY - minY ? x : y;
+
+        int leftParts = p / 2;
+        int leftSize;
+        if (weights == null)
+        {
+            leftSize = (int) ((long) (to - from) * leftParts / p);
+            IndexSort.selectByKey(index, key, from, to, leftSize);
+        }
+        else
+        {
+            leftSize = weightedSplit(key, weights, index, from, to, leftParts, p);
+        }
+        bisect(x, y, weights, index, from, from + leftSize, firstPart, leftParts, clusters);
+        bisect(x, y, weights, index, from + leftSize, to, firstPart + leftParts, p - leftParts, clusters);
+    }
+
+    /**
+     * Sorts index[from, to) along the key and finds the split whose left weight is closest to
+     * leftParts / p of the range's weight, leaving at least one vertex per part on each side.
+     *
+     * @param key Coordinate to split along.
+     * @param weights Weight of each vertex.
+     * @param index Vertex indices (sorted in place).
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     * @param leftParts Number of parts on the left side.
+     * @param p Number of parts in the range.
+     * @return Number of vertices on the left side.
+     */
+    private static int weightedSplit(double[] key, int[] weights, int[] index, int from, int to, int leftParts, int p)
+    {
+        IndexSort.sortByKey(index, key, from, to);
+        long total = 0;
+        for (int k = from; k < to; k++) total += weights[index[k]];
+        double target = (double) total * leftParts / p;
+
+        int minLeft = leftParts;
+        int maxLeft = (to - from) - (p - leftParts);
+        long weight = 0;
+        for (int k = from; k < from + minLeft; k++) weight += weights[index[k]];
+        int leftSize = minLeft;
+        while (leftSize < maxLeft && Math.abs(weight + weights[index[from + leftSize]] - target) <= Math.abs(weight - target))
+        {
+            weight += weights[index[from + leftSize]];
+            leftSize++;
+        }
+        return leftSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getDisplayName(false);
+    }
+}
@@ -0,0 +1,83 @@
+package graphdivider.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Suggests natural part counts from the eigengaps of the Laplacian.
+ * A graph with p well separated clusters has p eigenvalues close to zero followed by a jump,
+ * so a part count p is scored by the gap lambda[p] - lambda[p - 1] (0-based, ascending) relative to
+ * the average spacing lambda[p] / p of the eigenvalues below it. A score of 1 means an ordinary gap
+ * (eigenvalues growing evenly, as in a mesh); only part counts with a larger score are suggested.
+ * The eigenvalues come from the solve the spectral engines run anyway, extended by
+ * {@link GraphEigenvalues#GAP_LOOKAHEAD} pairs so that the gap after the requested p is known too.
+ */
+public final class EigengapAnalyzer
+{
+    // Eigenvalues below this (relative to the largest) count as zero
+    private static final double ZERO_TOLERANCE = 1e-9;
+
+    /**
+     * A suggested part count.
+     *
+     * @param parts Number of parts.
+     * @param gap Eigengap lambda[parts] - lambda[parts - 1].
+     * @param score Gap divided by the average spacing below it (above 1 for every suggestion).
+     */
+    public record Suggestion(int parts, double gap, double score) {}
+
+    // Prevent instantiation of utility class
+    private EigengapAnalyzer() {}
+
+    /**
+     * Ranks the part counts 2 .. eigenvalues.length - 1 by their eigengap score.
+     *
+     * @param eigenvalues Smallest eigenvalues of the Laplacian (in any order).
+     * @param maxSuggestions Maximum number of suggestions to return.
+     * @return Suggestions with a score above 1, best first (empty if the spectrum has no clear gap).
+     */
+    public static List<Suggestion> suggest(double[] eigenvalues, int maxSuggestions)
+    {
+        double[] lambda = eigenvalues.clone();
+        Arrays.sort(lambda);
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (lambda.length < 3) return suggestions;
+
+        double zero = ZERO_TOLERANCE * Math.max(1.0, lambda[lambda.length - 1]);
+        for (int p = 2; p < lambda.length; p++)
+        {
+            // lambda[p] == 0 means more than p components: the gap is not defined yet
+            if (lambda[p] <= zero) continue;
+            double gap = lambda[p] - Math.max(0.0, lambda[p - 1]);
+            double score = gap * p / lambda[p];
+            if (score > 1.0) suggestions.add(new Suggestion(p, gap, score));
+        }
+        suggestions.sort(Comparator.comparingDouble(Suggestion::score).reversed()
+                .thenComparingInt(Suggestion::parts));
+        return suggestions.size() > maxSuggestions
+                ? new ArrayList<>(suggestions.subList(0, maxSuggestions))
+                : suggestions;
+    }
+
+    /**
+     * Prints the suggestions to the console.
+     *
+     * @param suggestions Suggestions to print.
+     */
+    public static void print(List<Suggestion> suggestions)
+    {
+        if (suggestions.isEmpty())
+        {
+            System.out.println("[EigengapAnalyzer] No clear eigengap, no part count suggested.");
+            return;
+        }
+        StringBuilder text = new StringBuilder("[EigengapAnalyzer] Suggested part counts:");
+        for (Suggestion suggestion : suggestions)
+        {
+            text.append(String.format(" p = %d (gap %.4g, score %.2f)", suggestion.parts(), suggestion.gap(), suggestion.score()));
+        }
+        System.out.println(text);
+    }
+}
@@ -0,0 +1,370 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+
+/**
+ * Fiduccia-Mattheyses refinement of a bisection.
+ * Each pass starts from the boundary vertices only, kept in one gain bucket structure per side
+ * (doubly linked lists indexed by gain). The best movable vertex is moved and locked, its neighbours'
+ * gains are updated in O(degree), and at the end of the pass the moves after the best cut seen are
+ * rolled back. A pass therefore costs O(E). Moves must keep the partition within the margin
+ * (as defined by {@link GraphClusterization#calculateMargin}), or at least not make the balance worse.
+ */
+public final class FMRefinement
+{
+    // Refinement stops after this many passes or after the first pass without improvement
+    private static final int MAX_PASSES = 10;
+    // A pass gives up after this many moves without a new best state (plus 1% of the vertices)
+    private static final int MAX_UNPRODUCTIVE_MOVES = 64;
+
+    // Graph (symmetric adjacency, no diagonal) and vertex weights
+    private final int n;
+    private final int[] rowPtr;
+    private final int[] colInd;
+    private final int[] values;
+    private final int[] vertexWeights;
+    private final long minVertexWeight;
+    private final double marginPercent;
+
+    // Current side (0 or 1) of each vertex, total weight per side and edge cut
+    private final int[] side;
+    private final long[] sideWeight = new long[2];
+    private int cut;
+
+    // Gain buckets: head[s][gain + maxGain] starts a list linked through next/prev
+    private final int maxGain;
+    private final int[][] head;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] gain;
+    private final int[] topGain = new int[2];
+    private final boolean[] inBucket;
+    private final boolean[] locked;
+    // Vertices moved in the current pass, in order
+    private final int[] moves;
+
+    /**
+     * Prepares the refinement state for a bisection.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values).
+     * @param clusters Cluster index (1 or 2) of each vertex.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     */
+    private FMRefinement(CSRmatrix adjacency, int[] clusters, int[] vertexWeights, double marginPercent)
+    {
+        this.n = adjacency.size();
+        this.rowPtr = adjacency.getRowPtr();
+        this.colInd = adjacency.getColInd();
+        this.values = adjacency.getValues();
+        this.vertexWeights = vertexWeights;
+        this.minVertexWeight = vertexWeights != null ? Arrays.stream(vertexWeights).min().orElse(1) : 1;
+        this.marginPercent = marginPercent;
+
+        this.side = new int[n];
+        int largestDegree = 0;
+        for (int i = 0; i < n; i++)
+        {
+            side[i] = clusters[i] == 1 ? 0 : 1;
+            sideWeight[side[i]] += weight(i);
+            int degree = 0;
+            for (int idx = rowPtr[i]; idx < rowPtr[i + 1]; idx++)
+            {
+                if (colInd[idx] == i) continue;
+                degree += Math.abs(values[idx]);
+            }
+            largestDegree = Math.max(largestDegree, degree);
+        }
+        this.cut = computeCut();
+        this.maxGain = largestDegree;
+        this.head = new int[2][2 * maxGain + 1];
+        this.next = new int[n];
+        this.prev = new int[n];
+        this.gain = new int[n];
+        this.inBucket = new boolean[n];
+        this.locked = new boolean[n];
+        this.moves = new int[n];
+    }
+
+    /**
+     * Refines a bisection in place with Fiduccia-Mattheyses passes.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values, diagonal ignored).
+     * @param clusters Cluster index (1 or 2) of each vertex; updated in place.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent (see {@link GraphClusterization#calculateMargin}).
+     * @param job Cancellation flag and time budget (no new pass starts once the budget is exhausted).
+     * @return Reduction of the edge cut (0 if nothing improved).
+     * @throws IllegalArgumentException if clusters does not match the matrix size.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static int refineBisection(CSRmatrix adjacency, int[] clusters, int[] vertexWeights,
+                                      double marginPercent, JobControl job)
+    {
+        if (clusters.length != adjacency.size())
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length
+                    + " does not match matrix size " + adjacency.size() + ".");
+        }
+
+        FMRefinement refinement = new FMRefinement(adjacency, clusters, vertexWeights, marginPercent);
+        int initialCut = refinement.cut;
+        for (int pass = 0; pass < MAX_PASSES; pass++)
+        {
+            job.checkCancelled();
+            if (pass > 0 && job.isBudgetExhausted()) break;
+
+            int before = refinement.cut;
+            refinement.runPass();
+            System.out.println("[FMRefinement] Pass " + (pass + 1) + ": edges cut " + before + " -> " + refinement.cut);
+            if (refinement.cut >= before) break;
+        }
+
+        for (int i = 0; i < refinement.n; i++) clusters[i] = refinement.side[i] + 1;
+        return initialCut - refinement.cut;
+    }
+
+    /**
+     * Checks whether two part weights are within the given margin: (max - min) / min * 100 &lt;= margin.
+     *
+     * @param a Weight of one part.
+     * @param b Weight of the other part.
+     * @param marginPercent Allowed margin in percent.
+     * @return True if the parts are balanced enough.
+     */
+    static boolean withinMargin(long a, long b, double marginPercent)
+    {
+        long min = Math.min(a, b);
+        long max = Math.max(a, b);
+        return min > 0 && (max - min) * 100.0 <= marginPercent * min;
+    }
+
+    /**
+     * One FM pass: move boundary vertices greedily by gain, then roll back to the best state.
+     */
+    private void runPass()
+    {
+        Arrays.fill(head[0], -1);
+        Arrays.fill(head[1], -1);
+        Arrays.fill(inBucket, false);
+        Arrays.fill(locked, false);
+        topGain[0] = -maxGain;
+        topGain[1] = -maxGain;
+
+        // Only boundary vertices start in the buckets
+        for (int i = 0; i < n; i++)
+        {
+            int external = 0;
+            int internal = 0;
+            for (int idx = rowPtr[i]; idx < rowPtr[i + 1]; idx++)
+            {
+                int j = colInd[idx];
+                if (j == i) continue;
+                if (side[j] != side[i]) external += values[idx];
+                else internal += values[idx];
+            }
+            gain[i] = external - internal;
+            if (external > 0) insert(i);
+        }
+
+        int moveCount = 0;
+        int bestMoves = 0;
+        int bestCut = cut;
+        boolean bestBalanced = withinMargin(sideWeight[0], sideWeight[1], marginPercent);
+        long bestImbalance = Math.abs(sideWeight[0] - sideWeight[1]);
+        int unproductive = 0;
+        int unproductiveLimit = MAX_UNPRODUCTIVE_MOVES + n / 100;
+
+        while (unproductive <= unproductiveLimit)
+        {
+            int v = selectMove();
+            if (v == -1) break;
+            move(v);
+            moves[moveCount++] = v;
+
+            boolean balanced = withinMargin(sideWeight[0], sideWeight[1], marginPercent);
+            long imbalance = Math.abs(sideWeight[0] - sideWeight[1]);
+            boolean better = balanced
+                    ? !bestBalanced || cut < bestCut || (cut == bestCut && imbalance < bestImbalance)
+                    : !bestBalanced && imbalance < bestImbalance;
+            if (better)
+            {
+                bestMoves = moveCount;
+                bestCut = cut;
+                bestBalanced = balanced;
+                bestImbalance = imbalance;
+                unproductive = 0;
+            }
+            else
+            {
+                unproductive++;
+            }
+        }
+
+        // Undo the moves made after the best state
+        for (int k = moveCount - 1; k >= bestMoves; k--)
+        {
+            int v = moves[k];
+            sideWeight[side[v]] -= weight(v);
+            side[v] = 1 - side[v];
+            sideWeight[side[v]] += weight(v);
+        }
+        cut = bestCut;
+    }
+
+    /**
+     * Picks the highest-gain unlocked vertex whose move is allowed by the balance constraint; ties go to the heavier side.
+     * Each side's buckets are walked from the top gain down until an allowed vertex is found, so a heavy vertex
+     * that would break the balance does not hide lighter ones behind it. A rejected weight rules out every vertex
+     * at least as heavy on that side (see {@link #moveAllowed}), so the walk skips those and ends once no lighter
+     * vertex exists.
+     *
+     * @return Vertex to move, or -1 if no move is allowed.
+     */
+    private int selectMove()
+    {
+        int best = -1;
+        for (int s = 0; s < 2; s++)
+        {
+            while (topGain[s] > -maxGain && head[s][topGain[s] + maxGain] == -1) topGain[s]--;
+            long rejectedWeight = Long.MAX_VALUE;
+            int candidate = -1;
+            for (int g = topGain[s]; g >= -maxGain && candidate == -1 && rejectedWeight > minVertexWeight; g--)
+            {
+                // The other side already offers a better gain
+                if (best != -1 && g < gain[best]) break;
+                for (int v = head[s][g + maxGain]; v != -1; v = next[v])
+                {
+                    if (weight(v) >= rejectedWeight) continue;
+                    if (moveAllowed(v))
+                    {
+                        candidate = v;
+                        break;
+                    }
+                    rejectedWeight = weight(v);
+                    if (rejectedWeight <= minVertexWeight) break;
+                }
+            }
+            if (candidate == -1) continue;
+            if (best == -1 || gain[candidate] > gain[best]
+                    || (gain[candidate] == gain[best] && sideWeight[s] > sideWeight[side[best]]))
+            {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether moving v keeps the partition within the margin or at least reduces the imbalance.
+     * Monotone in the weight of v: if a move is rejected, so is every heavier move from the same side.
+     *
+     * @param v Vertex to move.
+     * @return True if the move is allowed.
+     */
+    private boolean moveAllowed(int v)
+    {
+        long w = weight(v);
+        long from = sideWeight[side[v]] - w;
+        long to = sideWeight[1 - side[v]] + w;
+        return withinMargin(from, to, marginPercent)
+                || Math.abs(from - to) < Math.abs(sideWeight[0] - sideWeight[1]);
+    }
+
+    /**
+     * Moves v to the other side, locks it and updates the gains of its neighbours.
+     *
+     * @param v Vertex to move.
+     */
+    private void move(int v)
+    {
+        remove(v);
+        locked[v] = true;
+        int from = side[v];
+        int to = 1 - from;
+        cut -= gain[v];
+        side[v] = to;
+        sideWeight[from] -= weight(v);
+        sideWeight[to] += weight(v);
+
+        for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+        {
+            int u = colInd[idx];
+            if (u == v || locked[u]) continue;
+            int delta = side[u] == to ? -2 * values[idx] : 2 * values[idx];
+            if (inBucket[u])
+            {
+                remove(u);
+                gain[u] += delta;
+                insert(u);
+            }
+            else
+            {
+                gain[u] += delta;
+                // An interior vertex on the old side now touches v: it joins the boundary
+                if (side[u] == from) insert(u);
+            }
+        }
+    }
+
+    /**
+     * Inserts v at the head of its gain bucket.
+     *
+     * @param v Vertex to insert.
+     */
+    private void insert(int v)
+    {
+        int s = side[v];
+        int bucket = gain[v] + maxGain;
+        next[v] = head[s][bucket];
+        prev[v] = -1;
+        if (head[s][bucket] != -1) prev[head[s][bucket]] = v;
+        head[s][bucket] = v;
+        inBucket[v] = true;
+        if (gain[v] > topGain[s]) topGain[s] = gain[v];
+    }
+
+    /**
+     * Unlinks v from its gain bucket.
+     *
+     * @param v Vertex to remove.
+     */
+    private void remove(int v)
+    {
+        int s = side[v];
+        if (prev[v] != -1) next[prev[v]] = next[v];
+        else head[s][gain[v] + maxGain] = next[v];
+        if (next[v] != -1) prev[next[v]] = prev[v];
+        inBucket[v] = false;
+    }
+
+    /**
+     * Total weight of edges between the two sides.
+     *
+     * @return Edge cut.
+     */
+    private int computeCut()
+    {
+        int total = 0;
+        for (int i = 0; i < n; i++)
+        {
+            for (int idx = rowPtr[i]; idx < rowPtr[i + 1]; idx++)
+            {
+                int j = colInd[idx];
+                if (j > i && side[j] != side[i]) total += values[idx];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Weight of vertex i.
+     *
+     * @param i Vertex index.
+     * @return Vertex weight (1 without weights).
+     */
+    private long weight(int i)
+    {
+        return vertexWeights != null ? vertexWeights[i] : 1;
+    }
+}
@@ -2,6 +2,8 @@ package graphdivider.model;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
 
 /**
  * Graph clustering utilities using Fiedler vector and k-means.
@@ -9,6 +11,11 @@ import java.util.Random;
  */
 public final class GraphClusterization
 {
+    // Mini-batch k-means: samples per batch (at least, or per cluster) and batch limit
+    private static final int MINI_BATCH_SIZE = 1024;
+    private static final int MINI_BATCH_SAMPLES_PER_CLUSTER = 64;
+    private static final int MAX_MINI_BATCHES = 200;
+
     /**
      * Clusters the graph using the Fiedler vector (for 2 parts) or k-means (for p parts).
      *
@@ -17,18 +24,80 @@ public final class GraphClusterization
      * @return Array of cluster indices for each vertex (1-based), or null on error.
      */
     public static int[] clusterizeGraph(GraphEigenvalues.EigenResult eigenResult, int p)
+    {
+        return clusterizeGraph(eigenResult, p, JobControl.unlimited());
+    }
+
+    /**
+     * Clusters the graph using the Fiedler vector (for 2 parts) or k-means (for p parts).
+     * K-means polls the job every iteration and stops early with its latest assignment
+     * once the time budget is exhausted.
+     *
+     * @param eigenResult EigenResult containing eigenvectors.
+     * @param p Number of clusters/partitions.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices for each vertex (1-based), or null on error.
+     * @throws CancellationException if the job was cancelled.
+     */
+    public static int[] clusterizeGraph(GraphEigenvalues.EigenResult eigenResult, int p, JobControl job)
+    {
+        return clusterizeGraph(eigenResult, p, null, new ClusteringOptions(ClusteringOptions.defaults().seed(), 1), job);
+    }
+
+    /**
+     * Clusters the graph using the Fiedler vector (for 2 parts) or k-means (for p parts).
+     * K-means is seeded with k-means++ and restarted options.restarts() times concurrently;
+     * the run with the smallest edge cut on the adjacency matrix is kept.
+     *
+     * @param eigenResult EigenResult containing eigenvectors.
+     * @param p Number of clusters/partitions.
+     * @param adjacency Symmetric adjacency matrix used to score restarts (may be null for a single run).
+     * @param options Seed and number of restarts.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices for each vertex (1-based), or null on error.
+     * @throws CancellationException if the job was cancelled.
+     */
+    public static int[] clusterizeGraph(GraphEigenvalues.EigenResult eigenResult, int p, CSRmatrix adjacency,
+                                        ClusteringOptions options, JobControl job)
+    {
+        return clusterizeGraph(eigenResult, p, adjacency, options, null, job);
+    }
+
+    /**
+     * Clusters a graph with weighted vertices: parts are balanced by total vertex weight instead of vertex count
+     * (weighted median of the Fiedler vector for 2 parts, weight capacities in {@link BalancedKMeans} otherwise).
+     * Restarts are scored by the cut weight on the adjacency matrix.
+     *
+     * @param eigenResult EigenResult containing eigenvectors.
+     * @param p Number of clusters/partitions.
+     * @param adjacency Symmetric adjacency matrix used to score restarts (may be null for a single run).
+     * @param options Seed and number of restarts.
+     * @param vertexWeights Weight of each vertex, or null to balance vertex counts.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices for each vertex (1-based), or null on error.
+     * @throws CancellationException if the job was cancelled.
+     */
+    public static int[] clusterizeGraph(GraphEigenvalues.EigenResult eigenResult, int p, CSRmatrix adjacency,
+                                        ClusteringOptions options, int[] vertexWeights, JobControl job)
     {
         try
         {
+            job.checkCancelled();
             if (p == 2)
             {
-                return partitionByFiedlerVector(eigenResult);
+                return vertexWeights == null
+                        ? partitionByFiedlerVector(eigenResult)
+                        : partitionByWeightedFiedlerVector(eigenResult, vertexWeights);
             } 
             else
             {
-                return clusterizeUsingKMeans(eigenResult, p);
+                return clusterizeUsingKMeans(eigenResult, p, adjacency, options, vertexWeights, job);
             }
         } 
+        catch (CancellationException e)
+        {
+            throw e;
+        }
         catch (Exception e)
         {
             System.err.println("Error during graph clustering: " + e.getMessage());
@@ -38,7 +107,9 @@ public final class GraphClusterization
 
     /**
      * Partitions the graph into two groups using the Fiedler vector.
-     * Assigns half the vertices to each group based on sorted Fiedler values.
+     * The n / 2 vertices with the smallest Fiedler values form group 1, found with a
+     * linear-time selection (see {@link IndexSort#selectByKey}). Vertices tied at the
+     * median value fill group 1 in index order, so the split is exactly n / 2 : n - n / 2.
      *
      * @param eigenResult EigenResult containing eigenvectors.
      * @return Array of cluster indices (1 or 2) for each vertex.
@@ -47,191 +118,154 @@ public final class GraphClusterization
     {
         double[] fiedlerVector = eigenResult.eigenvectors[1];
         int n = fiedlerVector.length;
-        Integer[] indices = new Integer[n];
+        int half = n / 2;
+        int[] groupIndices = new int[n];
+        if (half == 0)
+        {
+            java.util.Arrays.fill(groupIndices, 2);
+            return groupIndices;
+        }
+
+        int[] indices = new int[n];
         for (int i = 0; i < n; i++) indices[i] = i;
+        IndexSort.selectByKey(indices, fiedlerVector, 0, n, half);
 
-        // Sort indices by Fiedler vector value
-        java.util.Arrays.sort(indices, java.util.Comparator.comparingDouble(i -> fiedlerVector[i]));
+        // Median value: the smallest value outside the selected half
+        double median = Double.POSITIVE_INFINITY;
+        for (int k = half; k < n; k++) median = Math.min(median, fiedlerVector[indices[k]]);
 
-        int[] groupIndices = new int[n];
-        int half = n / 2;
+        // Values below the median go to group 1; ties at the median fill the rest in index order
+        int below = 0;
         for (int i = 0; i < n; i++)
         {
-            if (i < half)
+            if (fiedlerVector[i] < median) below++;
+        }
+        int tiesLeft = half - below;
+        for (int i = 0; i < n; i++)
+        {
+            double value = fiedlerVector[i];
+            if (value < median || (value == median && tiesLeft-- > 0))
             {
-                groupIndices[indices[i]] = 1;
-            } 
+                groupIndices[i] = 1;
+            }
             else
             {
-                groupIndices[indices[i]] = 2;
+                groupIndices[i] = 2;
             }
         }
         return groupIndices;
     }
 
     /**
-     * Performs balanced k-means clustering using the first p eigenvectors.
+     * Partitions the graph into two groups of (nearly) equal vertex weight using the Fiedler vector.
+     * Vertices are taken in Fiedler order into group 1 until its weight is closest to half the total.
      *
      * @param eigenResult EigenResult containing eigenvectors.
-     * @param p Number of clusters.
-     * @return Array of cluster indices (1-based) for each vertex.
+     * @param vertexWeights Weight of each vertex.
+     * @return Array of cluster indices (1 or 2) for each vertex.
      */
-    private static int[] clusterizeUsingKMeans(GraphEigenvalues.EigenResult eigenResult, int p)
+    private static int[] partitionByWeightedFiedlerVector(GraphEigenvalues.EigenResult eigenResult, int[] vertexWeights)
     {
-        int n = eigenResult.eigenvectors[0].length; // Number of vertices
-        int dimensions = eigenResult.eigenvectors.length; // Number of eigenvectors used
-        double[][] data = new double[n][dimensions];
-        for (int i = 0; i < n; i++)
-            for (int j = 0; j < dimensions; j++)
-                data[i][j] = eigenResult.eigenvectors[j][i];
-
-        int maxIterations = 100;
-        double[][] centroids = initializeCentroids(data, p);
-        int[] clusters = new int[n];
-
-        int minSize = n / p;
-        int extra = n % p; // Some clusters will have one extra
+        double[] fiedlerVector = eigenResult.eigenvectors[1];
+        int n = fiedlerVector.length;
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) indices[i] = i;
+        IndexSort.sortByKey(indices, fiedlerVector, 0, n);
 
-        for (int iteration = 0; iteration < maxIterations; iteration++)
+        long total = 0;
+        for (int w : vertexWeights) total += w;
+        int[] groupIndices = new int[n];
+        java.util.Arrays.fill(groupIndices, 2);
+        long weight = 0;
+        for (int k = 0; k < n - 1; k++)
         {
-            // Assign vertices to nearest centroid (respect size limits)
-            int[] clusterSizes = new int[p];
-            boolean[] assigned = new boolean[n];
-
-            for (int i = 0; i < n; i++)
-            {
-                // Compute distances to all centroids
-                double[] distances = new double[p];
-                for (int j = 0; j < p; j++)
-                {
-                    distances[j] = euclideanDistance(data[i], centroids[j]);
-                }
-
-                // Try to assign to closest centroid with available capacity
-                Integer[] order = new Integer[p];
-                for (int j = 0; j < p; j++) order[j] = j;
-                Arrays.sort(order, java.util.Comparator.comparingDouble(j -> distances[j]));
-
-                for (int idx = 0; idx < p; idx++)
-                {
-                    int c = order[idx];
-                    int targetSize = minSize + (c < extra ? 1 : 0);
-                    if (clusterSizes[c] < targetSize)
-                    {
-                        clusters[i] = c + 1; // 1-based
-                        clusterSizes[c]++;
-                        assigned[i] = true;
-                        break;
-                    }
-                }
-            }
-
-            // Update centroids
-            double[][] newCentroids = new double[p][dimensions];
-            int[] newClusterSizes = new int[p];
-            for (int i = 0; i < n; i++)
-            {
-                int cluster = clusters[i] - 1;
-                newClusterSizes[cluster]++;
-                for (int j = 0; j < dimensions; j++)
-                {
-                    newCentroids[cluster][j] += data[i][j];
-                }
-            }
-            for (int i = 0; i < p; i++)
-            {
-                if (newClusterSizes[i] > 0)
-                {
-                    for (int j = 0; j < dimensions; j++)
-                    {
-                        newCentroids[i][j] /= newClusterSizes[i];
-                    }
-                } 
-                else
-                {
-                    newCentroids[i] = data[new Random().nextInt(n)].clone();
-                }
-            }
-
-            // Check for convergence
-            boolean converged = true;
-            for (int i = 0; i < p; i++)
-            {
-                if (!Arrays.equals(centroids[i], newCentroids[i]))
-                {
-                    converged = false;
-                    break;
-                }
-            }
-            centroids = newCentroids;
-            if (converged) break;
+            int v = indices[k];
+            // Stop when adding the vertex would move group 1 further from half the total
+            if (k > 0 && Math.abs(2 * (weight + vertexWeights[v]) - total) > Math.abs(2 * weight - total)) break;
+            groupIndices[v] = 1;
+            weight += vertexWeights[v];
         }
-        return clusters;
+        return groupIndices;
     }
 
     /**
-     * Initializes centroids for k-means clustering.
-     * Evenly spaces centroids along each dimension.
+     * Performs balanced k-means clustering using the first p eigenvectors.
+     * Runs independent k-means++ restarts in parallel (see {@link BalancedKMeans})
+     * and keeps the one with the smallest edge cut.
      *
-     * @param data Data points (vertices) as [vertex][dimension].
+     * @param eigenResult EigenResult containing eigenvectors.
      * @param p Number of clusters.
-     * @return Initialized centroids.
+     * @param adjacency Symmetric adjacency matrix used to score restarts (may be null).
+     * @param options Seed and number of restarts.
+     * @param vertexWeights Weight of each vertex, or null to balance vertex counts.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices (1-based) for each vertex.
      */
-    private static double[][] initializeCentroids(double[][] data, int p)
+    private static int[] clusterizeUsingKMeans(GraphEigenvalues.EigenResult eigenResult, int p, CSRmatrix adjacency,
+                                               ClusteringOptions options, int[] vertexWeights, JobControl job)
     {
-        int n = data.length;
-        int dimensions = data[0].length;
-        double[][] centroids = new double[p][dimensions];
+        int dimensions = eigenResult.eigenvectors.length; // Number of eigenvectors used
+        double[] data = toRowMajor(eigenResult);
+        int n = data.length / dimensions;
+
+        int maxIterations = 100;
+        int restarts = adjacency != null ? options.restarts() : 1;
 
-        // Find min/max for each dimension
-        double[] min = new double[dimensions];
-        double[] max = new double[dimensions];
-        Arrays.fill(min, Double.POSITIVE_INFINITY);
-        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        // Derive one seed per restart so each run is reproducible on its own
+        long[] seeds = new long[restarts];
+        Random seeder = new Random(options.seed());
+        for (int r = 0; r < restarts; r++) seeds[r] = seeder.nextLong();
 
-        for (int i = 0; i < n; i++)
+        int[][] results = new int[restarts][];
+        long[] cutWeight = new long[restarts];
+        IntStream.range(0, restarts).parallel().forEach(r ->
         {
-            for (int d = 0; d < dimensions; d++)
+            BalancedKMeans kMeans = new BalancedKMeans(data, dimensions, p, options.mode(), vertexWeights);
+            Random random = new Random(seeds[r]);
+            double[] initial = BalancedKMeans.kMeansPlusPlusCentroids(data, dimensions, p, random);
+            if (options.mode() == KMeansMode.MINI_BATCH)
             {
-                if (data[i][d] < min[d]) min[d] = data[i][d];
-                if (data[i][d] > max[d]) max[d] = data[i][d];
+                int batchSize = Math.min(n, Math.max(MINI_BATCH_SIZE, MINI_BATCH_SAMPLES_PER_CLUSTER * p));
+                results[r] = kMeans.runMiniBatch(initial, batchSize, MAX_MINI_BATCHES, random, job);
             }
-        }
-
-        // Evenly space centroids along each dimension
-        for (int c = 0; c < p; c++)
-        {
-            for (int d = 0; d < dimensions; d++)
+            else
             {
-                if (p == 1)
-                {
-                    centroids[c][d] = (min[d] + max[d]) / 2.0;
-                } 
-                else
-                {
-                    centroids[c][d] = min[d] + (max[d] - min[d]) * c / (p - 1);
-                }
+                results[r] = kMeans.run(initial, maxIterations, job);
             }
-        }
+            cutWeight[r] = adjacency != null ? calculateCutWeight(adjacency, results[r]) : 0;
+            System.out.println("[GraphClusterization] K-means restart " + (r + 1) + "/" + restarts + ": "
+                    + kMeans.getIterations() + " iterations, " + kMeans.getDistanceEvaluations()
+                    + " distance evaluations, inertia " + String.format("%.6g", kMeans.getInertia())
+                    + ", cut weight " + cutWeight[r]);
+        });
 
-        return centroids;
+        int best = 0;
+        for (int r = 1; r < restarts; r++)
+        {
+            if (cutWeight[r] < cutWeight[best]) best = r;
+        }
+        if (restarts > 1)
+        {
+            System.out.println("[GraphClusterization] Keeping restart " + (best + 1) + " with cut weight " + cutWeight[best] + ".");
+        }
+        return results[best];
     }
 
     /**
-     * Computes the Euclidean distance between two vectors.
+     * Converts eigenvectors to a row-major embedding: data[i * dimensions + j] = j-th coordinate of vertex i.
      *
-     * @param vector1 First vector.
-     * @param vector2 Second vector.
-     * @return Euclidean distance.
+     * @param eigenResult EigenResult containing eigenvectors.
+     * @return Row-major embedding.
      */
-    private static double euclideanDistance(double[] vector1, double[] vector2)
+    static double[] toRowMajor(GraphEigenvalues.EigenResult eigenResult)
     {
-        double sum = 0.0;
-        for (int i = 0; i < vector1.length; i++)
-        {
-            sum += Math.pow(vector1[i] - vector2[i], 2);
-        }
-        return Math.sqrt(sum);
+        int n = eigenResult.eigenvectors[0].length; // Number of vertices
+        int dimensions = eigenResult.eigenvectors.length;
+        double[] data = new double[n * dimensions];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < dimensions; j++)
+                data[i * dimensions + j] = eigenResult.eigenvectors[j][i];
+        return data;
     }
 
     /**
@@ -268,6 +302,95 @@ public final class GraphClusterization
         }
     }
 
+    /**
+     * Improves a partition locally within the given margin: Fiduccia-Mattheyses passes
+     * for two parts ({@link FMRefinement}), parallel greedy k-way rounds otherwise ({@link KWayRefinement}).
+     *
+     * @param adjacency Symmetric adjacency matrix in CSR format.
+     * @param clusters Array of cluster indices (1-based) for each vertex; updated in place.
+     * @param p Number of clusters.
+     * @param marginPercent Allowed margin in percent (see {@link #calculateMargin}).
+     * @param job Cancellation flag and time budget.
+     * @return Reduction of the edge cut.
+     * @throws CancellationException if the job was cancelled.
+     */
+    public static int refinePartition(CSRmatrix adjacency, int[] clusters, int p, double marginPercent, JobControl job)
+    {
+        return refinePartition(adjacency, clusters, p, null, marginPercent, job);
+    }
+
+    /**
+     * Improves a partition of a graph with weighted vertices locally within the given margin.
+     *
+     * @param adjacency Symmetric adjacency matrix in CSR format.
+     * @param clusters Array of cluster indices (1-based) for each vertex; updated in place.
+     * @param p Number of clusters.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent, measured on vertex weights.
+     * @param job Cancellation flag and time budget.
+     * @return Reduction of the edge cut.
+     * @throws CancellationException if the job was cancelled.
+     */
+    public static int refinePartition(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights,
+                                      double marginPercent, JobControl job)
+    {
+        if (p == 2)
+        {
+            return FMRefinement.refineBisection(adjacency, clusters, vertexWeights, marginPercent, job);
+        }
+        return KWayRefinement.refine(adjacency, clusters, p, vertexWeights, marginPercent, job);
+    }
+
+    /**
+     * Counts edges whose endpoints are in different clusters.
+     * Works on any symmetric matrix (adjacency or Laplacian): each off-diagonal pair is counted once.
+     *
+     * @param adjacency Symmetric matrix in CSR format.
+     * @param clusters Array of cluster indices for each vertex.
+     * @return Number of edges cut.
+     */
+    public static int calculateEdgesCut(CSRmatrix adjacency, int[] clusters)
+    {
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int edgesCut = 0;
+        for (int row = 0; row < adjacency.size(); row++)
+        {
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
+            {
+                int col = colInd[idx];
+                if (col > row && clusters[row] != clusters[col]) edgesCut++;
+            }
+        }
+        return edgesCut;
+    }
+
+    /**
+     * Sums the weights of the edges whose endpoints are in different clusters
+     * (equal to {@link #calculateEdgesCut} on an unweighted graph).
+     * Works on any symmetric matrix (adjacency or Laplacian): weights are taken as absolute values.
+     *
+     * @param adjacency Symmetric matrix in CSR format.
+     * @param clusters Array of cluster indices for each vertex.
+     * @return Cut weight.
+     */
+    public static long calculateCutWeight(CSRmatrix adjacency, int[] clusters)
+    {
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+        long cutWeight = 0;
+        for (int row = 0; row < adjacency.size(); row++)
+        {
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
+            {
+                int col = colInd[idx];
+                if (col > row && clusters[row] != clusters[col]) cutWeight += Math.abs(values[idx]);
+            }
+        }
+        return cutWeight;
+    }
+
     /**
      * Calculates the margin of clusters (relative size difference).
      * Margin is defined as (max - min) / min * 100%.
@@ -0,0 +1,160 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+
+/**
+ * Graph coarsening by heavy-edge matching.
+ * Each coarsening step pairs every vertex with its heaviest unmatched neighbor
+ * and contracts the pairs, summing vertex weights and parallel edge weights.
+ */
+public final class GraphCoarsening
+{
+    /**
+     * One coarsening step: the coarse graph and the mapping from the finer graph.
+     *
+     * @param adjacency Coarse symmetric adjacency matrix (edge weights in values, no diagonal).
+     * @param vertexWeights Weight of each coarse vertex (sum of contracted fine vertex weights).
+     * @param fineToCoarse Coarse vertex index of each fine vertex.
+     */
+    public record Level(CSRmatrix adjacency, int[] vertexWeights, int[] fineToCoarse)
+    {
+        /**
+         * Gets the number of coarse vertices.
+         *
+         * @return Coarse graph size.
+         */
+        public int size()
+        {
+            return adjacency.size();
+        }
+    }
+
+    // Prevent instantiation of utility class
+    private GraphCoarsening() {}
+
+    /**
+     * Contracts a heavy-edge matching of the given graph.
+     * Vertices are visited in order of increasing degree so that low-degree vertices
+     * (which have fewer matching options) are matched first.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights in values, no diagonal).
+     * @param vertexWeights Vertex weights, or null for unit weights.
+     * @return Coarse level.
+     */
+    public static Level coarsen(CSRmatrix adjacency, int[] vertexWeights)
+    {
+        int n = adjacency.size();
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+        int[] weights = vertexWeights != null ? vertexWeights : unitWeights(n);
+
+        // Visit order: increasing degree (counting sort on degree)
+        int maxDegree = 0;
+        for (int i = 0; i < n; i++) maxDegree = Math.max(maxDegree, rowPtr[i + 1] - rowPtr[i]);
+        int[] bucketStart = new int[maxDegree + 2];
+        for (int i = 0; i < n; i++) bucketStart[rowPtr[i + 1] - rowPtr[i] + 1]++;
+        for (int d = 0; d <= maxDegree; d++) bucketStart[d + 1] += bucketStart[d];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[bucketStart[rowPtr[i + 1] - rowPtr[i]]++] = i;
+
+        // Heavy-edge matching
+        int[] match = new int[n];
+        Arrays.fill(match, -1);
+        int[] fineToCoarse = new int[n];
+        int coarseSize = 0;
+        for (int u : order)
+        {
+            if (match[u] != -1) continue;
+            int best = -1;
+            int bestWeight = Integer.MIN_VALUE;
+            for (int idx = rowPtr[u]; idx < rowPtr[u + 1]; idx++)
+            {
+                int v = colInd[idx];
+                if (v == u || match[v] != -1) continue;
+                // Prefer heavier edges, then lighter partners (keeps coarse weights even)
+                if (best == -1 || values[idx] > bestWeight || (values[idx] == bestWeight && weights[v] < weights[best]))
+                {
+                    best = v;
+                    bestWeight = values[idx];
+                }
+            }
+            match[u] = best != -1 ? best : u;
+            fineToCoarse[u] = coarseSize;
+            if (best != -1)
+            {
+                match[best] = u;
+                fineToCoarse[best] = coarseSize;
+            }
+            coarseSize++;
+        }
+
+        // Coarse vertex weights and members (u, match[u])
+        int[] coarseWeights = new int[coarseSize];
+        int[] firstMember = new int[coarseSize];
+        Arrays.fill(firstMember, -1);
+        for (int u = 0; u < n; u++)
+        {
+            int c = fineToCoarse[u];
+            coarseWeights[c] += weights[u];
+            if (firstMember[c] == -1) firstMember[c] = u;
+        }
+
+        // Coarse edges: merge both members' rows, summing parallel edges (marker array)
+        int[] coarseRowPtr = new int[coarseSize + 1];
+        int[] coarseColInd = new int[colInd.length];
+        int[] coarseValues = new int[colInd.length];
+        int[] marker = new int[coarseSize];
+        Arrays.fill(marker, -1);
+        int nnz = 0;
+        for (int c = 0; c < coarseSize; c++)
+        {
+            coarseRowPtr[c] = nnz;
+            int u = firstMember[c];
+            int rowStart = nnz;
+            for (int member = u; ; member = match[u])
+            {
+                for (int idx = rowPtr[member]; idx < rowPtr[member + 1]; idx++)
+                {
+                    int target = fineToCoarse[colInd[idx]];
+                    if (target == c) continue; // contracted edge
+                    if (marker[target] >= rowStart)
+                    {
+                        coarseValues[marker[target]] += values[idx];
+                    }
+                    else
+                    {
+                        marker[target] = nnz;
+                        coarseColInd[nnz] = target;
+                        coarseValues[nnz] = values[idx];
+                        nnz++;
+                    }
+                }
+                if (member == match[u] || match[u] == u) break;
+            }
+        }
+        coarseRowPtr[coarseSize] = nnz;
+
+        CSRmatrix coarse = new CSRmatrix
+        (
+            coarseRowPtr,
+            Arrays.copyOf(coarseColInd, nnz),
+            Arrays.copyOf(coarseValues, nnz),
+            coarseSize
+        );
+        return new Level(coarse, coarseWeights, fineToCoarse);
+    }
+
+    /**
+     * Creates an array of unit vertex weights.
+     *
+     * @param n Number of vertices.
+     * @return Array filled with 1.
+     */
+    static int[] unitWeights(int n)
+    {
+        int[] weights = new int[n];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+}
@@ -0,0 +1,297 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+
+/**
+ * A batch of changes to a graph: new vertices and edge insertions and deletions.
+ * New vertices get the ids following the existing ones (n, n + 1, ...); edges may connect them.
+ * Inserting an edge that already exists and deleting one that does not are ignored.
+ * <p>
+ * Usage: {@code new GraphDelta().addVertices(2).insertEdge(0, n).deleteEdge(3, 7).apply(adjacency)}.
+ */
+public final class GraphDelta
+{
+    // Number of vertices appended to the graph
+    private int addedVertices = 0;
+    // Inserted and deleted edges as (u, v) pairs, flattened
+    private int[] insertions = new int[16];
+    private int insertionCount = 0;
+    private int[] deletions = new int[16];
+    private int deletionCount = 0;
+
+    /**
+     * Appends new vertices to the graph.
+     *
+     * @param count Number of vertices to add.
+     * @return This delta.
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public GraphDelta addVertices(int count)
+    {
+        if (count < 0)
+        {
+            throw new IllegalArgumentException("Number of added vertices must not be negative: " + count);
+        }
+        addedVertices += count;
+        return this;
+    }
+
+    /**
+     * Inserts an edge with weight 1.
+     *
+     * @param u One endpoint.
+     * @param v Other endpoint.
+     * @return This delta.
+     * @throws IllegalArgumentException if u equals v or an endpoint is negative.
+     */
+    public GraphDelta insertEdge(int u, int v)
+    {
+        checkEdge(u, v);
+        insertions = append(insertions, insertionCount, u, v);
+        insertionCount += 2;
+        return this;
+    }
+
+    /**
+     * Deletes an edge.
+     *
+     * @param u One endpoint.
+     * @param v Other endpoint.
+     * @return This delta.
+     * @throws IllegalArgumentException if u equals v or an endpoint is negative.
+     */
+    public GraphDelta deleteEdge(int u, int v)
+    {
+        checkEdge(u, v);
+        deletions = append(deletions, deletionCount, u, v);
+        deletionCount += 2;
+        return this;
+    }
+
+    /**
+     * Gets the number of vertices this delta appends.
+     *
+     * @return Number of new vertices.
+     */
+    public int getAddedVertices()
+    {
+        return addedVertices;
+    }
+
+    /**
+     * Checks whether the delta changes nothing.
+     *
+     * @return True if there are no new vertices and no edge changes.
+     */
+    public boolean isEmpty()
+    {
+        return addedVertices == 0 && insertionCount == 0 && deletionCount == 0;
+    }
+
+    /**
+     * Builds the changed graph. The original matrix is not modified.
+     * Rows without deletions are copied as a block; only rows that lose an edge are filtered,
+     * by binary search in the sorted deleted edges.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values, no diagonal, sorted rows).
+     * @return New symmetric adjacency matrix with size n + added vertices.
+     * @throws IllegalArgumentException if an edge refers to a vertex outside the new graph.
+     */
+    public CSRmatrix apply(CSRmatrix adjacency)
+    {
+        int n = adjacency.size();
+        int newSize = n + addedVertices;
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+        checkRange(insertions, insertionCount, newSize);
+        checkRange(deletions, deletionCount, newSize);
+
+        // Deletions of existing edges
+        long[] deletionKeys = edgeKeys(deletions, deletionCount);
+        long[] deleted = new long[deletionKeys.length];
+        int deletedCount = 0;
+        for (long edge : deletionKeys)
+        {
+            if (hasEdge(adjacency, (int) (edge >>> 32), (int) edge)) deleted[deletedCount++] = edge;
+        }
+
+        // Insertions that are new edges (not present, not listed twice, not deleted in the same batch)
+        long[] inserted = edgeKeys(insertions, insertionCount);
+        int insertedCount = 0;
+        for (long edge : inserted)
+        {
+            if (Arrays.binarySearch(deletionKeys, edge) >= 0 || hasEdge(adjacency, (int) (edge >>> 32), (int) edge)) continue;
+            inserted[insertedCount++] = edge;
+        }
+
+        int[] degreeChange = new int[newSize];
+        boolean[] losesEdge = new boolean[n];
+        for (int k = 0; k < deletedCount; k++)
+        {
+            int u = (int) (deleted[k] >>> 32);
+            int v = (int) deleted[k];
+            degreeChange[u]--;
+            degreeChange[v]--;
+            losesEdge[u] = true;
+            losesEdge[v] = true;
+        }
+        for (int k = 0; k < insertedCount; k++)
+        {
+            degreeChange[(int) (inserted[k] >>> 32)]++;
+            degreeChange[(int) inserted[k]]++;
+        }
+
+        int[] newRowPtr = new int[newSize + 1];
+        for (int i = 0; i < newSize; i++)
+        {
+            int degree = i < n ? rowPtr[i + 1] - rowPtr[i] : 0;
+            newRowPtr[i + 1] = newRowPtr[i] + degree + degreeChange[i];
+        }
+        int[] newColInd = new int[newRowPtr[newSize]];
+        int[] newValues = new int[newRowPtr[newSize]];
+        int[] fill = Arrays.copyOf(newRowPtr, newSize);
+        for (int i = 0; i < n; i++)
+        {
+            if (!losesEdge[i])
+            {
+                int length = rowPtr[i + 1] - rowPtr[i];
+                System.arraycopy(colInd, rowPtr[i], newColInd, fill[i], length);
+                System.arraycopy(values, rowPtr[i], newValues, fill[i], length);
+                fill[i] += length;
+                continue;
+            }
+            for (int idx = rowPtr[i]; idx < rowPtr[i + 1]; idx++)
+            {
+                int j = colInd[idx];
+                if (Arrays.binarySearch(deleted, 0, deletedCount, key(i, j)) >= 0) continue;
+                newColInd[fill[i]] = j;
+                newValues[fill[i]++] = values[idx];
+            }
+        }
+        for (int k = 0; k < insertedCount; k++)
+        {
+            int u = (int) (inserted[k] >>> 32);
+            int v = (int) inserted[k];
+            newColInd[fill[u]] = v;
+            newValues[fill[u]++] = 1;
+            newColInd[fill[v]] = u;
+            newValues[fill[v]++] = 1;
+        }
+
+        System.out.println("[GraphDelta] Applied " + addedVertices + " new vertices, " + insertedCount
+                + " insertions, " + deletedCount + " deletions: " + n + " -> " + newSize + " vertices.");
+        return new CSRmatrix(newRowPtr, newColInd, newValues, newSize);
+    }
+
+    /**
+     * Marks the vertices touched by the delta: endpoints of changed edges and new vertices.
+     *
+     * @param newSize Number of vertices after the delta.
+     * @return Flag per vertex.
+     */
+    public boolean[] touchedVertices(int newSize)
+    {
+        boolean[] touched = new boolean[newSize];
+        for (int k = 0; k < insertionCount; k++) touched[insertions[k]] = true;
+        for (int k = 0; k < deletionCount; k++) touched[deletions[k]] = true;
+        for (int i = newSize - addedVertices; i < newSize; i++) touched[i] = true;
+        return touched;
+    }
+
+    /**
+     * Checks whether the edge u-v exists (binary search in the sorted row of u).
+     *
+     * @param adjacency Adjacency matrix with sorted rows.
+     * @param u One endpoint.
+     * @param v Other endpoint.
+     * @return True if present (false when u is a new vertex).
+     */
+    private static boolean hasEdge(CSRmatrix adjacency, int u, int v)
+    {
+        if (u >= adjacency.size()) return false;
+        int[] rowPtr = adjacency.getRowPtr();
+        return Arrays.binarySearch(adjacency.getColInd(), rowPtr[u], rowPtr[u + 1], v) >= 0;
+    }
+
+    /**
+     * Collects the keys of flattened edge pairs, sorted and without duplicates.
+     *
+     * @param pairs Flattened pairs.
+     * @param count Number of used entries.
+     * @return Sorted unique edge keys.
+     */
+    private static long[] edgeKeys(int[] pairs, int count)
+    {
+        long[] keys = new long[count / 2];
+        for (int k = 0; k < count; k += 2) keys[k / 2] = key(pairs[k], pairs[k + 1]);
+        Arrays.sort(keys);
+        int unique = 0;
+        for (int k = 0; k < keys.length; k++)
+        {
+            if (unique == 0 || keys[k] != keys[unique - 1]) keys[unique++] = keys[k];
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * Key of an undirected edge (smaller endpoint in the high half).
+     *
+     * @param u One endpoint.
+     * @param v Other endpoint.
+     * @return Edge key.
+     */
+    private static long key(int u, int v)
+    {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    /**
+     * Validates an edge.
+     *
+     * @param u One endpoint.
+     * @param v Other endpoint.
+     */
+    private static void checkEdge(int u, int v)
+    {
+        if (u < 0 || v < 0 || u == v)
+        {
+            throw new IllegalArgumentException("Invalid edge " + u + "-" + v + ".");
+        }
+    }
+
+    /**
+     * Checks that all endpoints exist in the changed graph.
+     *
+     * @param pairs Flattened pairs.
+     * @param count Number of used entries.
+     * @param size Number of vertices after the delta.
+     */
+    private static void checkRange(int[] pairs, int count, int size)
+    {
+        for (int k = 0; k < count; k++)
+        {
+            if (pairs[k] >= size)
+            {
+                throw new IllegalArgumentException("Vertex index " + pairs[k] + " out of range [0, " + size + ").");
+            }
+        }
+    }
+
+    /**
+     * Appends a pair to a flattened pair array, growing it when full.
+     *
+     * @param pairs Flattened pairs.
+     * @param count Number of used entries.
+     * @param u First value.
+     * @param v Second value.
+     * @return The (possibly reallocated) array.
+     */
+    private static int[] append(int[] pairs, int count, int u, int v)
+    {
+        if (count + 2 > pairs.length) pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+        pairs[count] = u;
+        pairs[count + 1] = v;
+        return pairs;
+    }
+}
@@ -1,6 +1,7 @@
 package graphdivider.model;
 
 import com.github.fommil.netlib.ARPACK;
+import com.github.fommil.netlib.LAPACK;
 import org.netlib.util.doubleW;
 import org.netlib.util.intW;
 
@@ -16,6 +17,10 @@ public final class GraphEigenvalues
 {
     // Logger for debug/info messages
     private static final Logger LOGGER = Logger.getLogger(GraphEigenvalues.class.getName());
+    // Extra eigenpairs solved past the requested p, so the eigengaps after p are known (see EigengapAnalyzer)
+    public static final int GAP_LOOKAHEAD = 3;
+    // The F2J ARPACK keeps its state in static fields, so solves from several threads must not overlap
+    private static final Object ARPACK_LOCK = new Object();
 
     /**
      * Holds eigenvalues and eigenvectors.
@@ -47,34 +52,135 @@ public final class GraphEigenvalues
                 }
             }
         }
+
+        /**
+         * Wraps already separated eigenpairs.
+         *
+         * @param values Array of eigenvalues.
+         * @param vectors Eigenvectors (vectors[i] is the i-th eigenvector).
+         */
+        public EigenResult(double[] values, double[][] vectors)
+        {
+            this.eigenvalues = values;
+            this.eigenvectors = vectors;
+        }
+
+        /**
+         * Gets the k eigenpairs with the smallest eigenvalues (the vectors are shared, not copied).
+         * These are the pairs a solve for k would return (up to sign and ties between equal
+         * eigenvalues), so one solve for the largest k serves every smaller one.
+         *
+         * @param k Number of eigenpairs to keep.
+         * @return EigenResult with the first k eigenpairs.
+         * @throws IllegalArgumentException if k is not between 1 and the number of computed pairs.
+         */
+        public EigenResult leading(int k)
+        {
+            if (k < 1 || k > eigenvectors.length)
+            {
+                throw new IllegalArgumentException("Cannot take " + k + " of " + eigenvectors.length + " eigenpairs.");
+            }
+            return new EigenResult(Arrays.copyOf(eigenvalues, k), Arrays.copyOf(eigenvectors, k));
+        }
     }
 
     // Prevent instantiation of utility class
     private GraphEigenvalues() {}
 
+    /**
+     * Gets the number of eigenpairs to solve for p parts: p plus {@link #GAP_LOOKAHEAD}, at most n - 1
+     * (ARPACK needs nev < n) but never fewer than p.
+     * The extra Ritz pairs cost little next to the solve and give the eigengaps for
+     * {@link EigengapAnalyzer}; the partition itself uses {@link EigenResult#leading(int)}.
+     *
+     * @param p Number of parts.
+     * @param n Number of vertices.
+     * @return Number of eigenpairs to compute.
+     */
+    public static int pairsWithLookahead(int p, int n)
+    {
+        return Math.max(p, Math.min(p + GAP_LOOKAHEAD, n - 1));
+    }
+
     /**
      * Computes the smallest p eigenpairs of the Laplacian matrix using ARPACK.
      * Returns eigenvalues and eigenvectors.
      *
-     * @param laplacian Laplacian matrix in CSR format.
+     * @param laplacian Laplacian matrix in half storage.
+     * @param p Number of smallest eigenpairs to compute.
+     * @return EigenResult containing eigenvalues and eigenvectors.
+     * @throws Exception if ARPACK fails or input is invalid.
+     */
+    public static EigenResult computeSmallestEigenpairs(SymmetricCSRmatrix laplacian, int p) throws Exception
+    {
+        return computeSmallestEigenpairs(laplacian, p, JobControl.unlimited());
+    }
+
+    /**
+     * Computes the smallest p eigenpairs of the Laplacian matrix using ARPACK.
+     * The job is polled once per reverse-communication step: cancellation aborts the solve,
+     * an exhausted budget stops it and returns Ritz approximations from the current Lanczos basis.
+     *
+     * @param laplacian Laplacian matrix in half storage.
+     * @param p Number of smallest eigenpairs to compute.
+     * @param job Cancellation flag and time budget.
+     * @return EigenResult containing eigenvalues and eigenvectors.
+     * @throws Exception if ARPACK fails or input is invalid.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static EigenResult computeSmallestEigenpairs(SymmetricCSRmatrix laplacian, int p, JobControl job) throws Exception
+    {
+        return computeSmallestEigenpairs(laplacian, p, job, null);
+    }
+
+    /**
+     * Computes the smallest p eigenpairs of the Laplacian matrix using ARPACK,
+     * starting the Lanczos iteration from the given vector (see {@link StartVector}).
+     * Solves run one at a time; concurrent callers wait for each other.
+     *
+     * @param laplacian Laplacian matrix in half storage.
+     * @param p Number of smallest eigenpairs to compute.
+     * @param job Cancellation flag and time budget.
+     * @param startVector Initial residual vector of length n, or null for ARPACK's random start.
+     * @return EigenResult containing eigenvalues and eigenvectors.
+     * @throws Exception if ARPACK fails or input is invalid.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static EigenResult computeSmallestEigenpairs(SymmetricCSRmatrix laplacian, int p, JobControl job, double[] startVector) throws Exception
+    {
+        synchronized (ARPACK_LOCK)
+        {
+            return solve(laplacian, p, job, startVector);
+        }
+    }
+
+    /**
+     * Runs the ARPACK solve (callers hold ARPACK_LOCK).
+     *
+     * @param laplacian Laplacian matrix in half storage.
      * @param p Number of smallest eigenpairs to compute.
+     * @param job Cancellation flag and time budget.
+     * @param startVector Initial residual vector of length n, or null for ARPACK's random start.
      * @return EigenResult containing eigenvalues and eigenvectors.
      * @throws Exception if ARPACK fails or input is invalid.
      */
-    public static EigenResult computeSmallestEigenpairs(CSRmatrix laplacian, int p) throws Exception
+    private static EigenResult solve(SymmetricCSRmatrix laplacian, int p, JobControl job, double[] startVector) throws Exception
     {
         System.out.println("ARPACK implementation: " + ARPACK.getInstance().getClass().getName());
 
         int n = laplacian.size();
-        if (n <= 0 || p <= 0 || p > n)
+        if (n <= 0 || p <= 0 || p >= n)
         {
-            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure n > 0 and 0 < p <= n.");
+            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure n > 0 and 0 < p < n.");
         }
 
         ARPACK arpack = ARPACK.getInstance();
+        // Product buffers are set up once for all iterations
+        SymmetricCSRmatrix.Workspace workspace = laplacian.workspace();
 
         // ARPACK parameters
-        int ncv = Math.min(4 * p, n); // Subspace dimension
+        // Subspace dimension: dsaupd needs nev < ncv <= n
+        int ncv = Math.min(Math.max(4 * p, p + 1), n);
         int maxIter = 10000;
         double tol = 1e-6; // Stricter tolerance
 
@@ -86,6 +192,15 @@ public final class GraphEigenvalues
 
         double[] resid = new double[n];
         Arrays.fill(resid, 0.0); // Deterministic init
+        if (startVector != null)
+        {
+            if (startVector.length != n)
+            {
+                throw new IllegalArgumentException("Start vector length " + startVector.length + " does not match n = " + n + ".");
+            }
+            System.arraycopy(startVector, 0, resid, 0, n);
+            info.val = 1; // Use resid as the starting vector
+        }
         double[] V = new double[n * ncv];
         int ldv = n;
         int[] iparam = new int[11];
@@ -102,26 +217,20 @@ public final class GraphEigenvalues
         // Reverse communication loop
         while (ido.val != 99)
         {
+            job.checkCancelled();
+            if (job.isBudgetExhausted())
+            {
+                System.out.println("[GraphEigenvalues] Time budget exhausted, using Ritz approximations from the current basis.");
+                return rayleighRitz(laplacian, workspace, V, ncv, p);
+            }
+
             doubleW tolWrapper = new doubleW(tol);
             arpack.dsaupd(ido, bmat, n, which, p, tolWrapper, resid, ncv, V, ldv, iparam, ipntr, workd, workl, lworkl, info);
 
             if (ido.val == -1 || ido.val == 1)
             {
-                double[] x = workd;
-                double[] y = new double[n];
-                int xOffset = ipntr[0] - 1;
-                int yOffset = ipntr[1] - 1;
-
                 // y = L * x
-                for (int i = 0; i < n; i++) y[i] = 0.0;
-                for (int i = 0; i < n; i++)
-                {
-                    for (int j = laplacian.getRowPtr()[i]; j < laplacian.getRowPtr()[i + 1]; j++)
-                    {
-                        y[i] += laplacian.getValues()[j] * x[xOffset + laplacian.getColInd()[j]];
-                    }
-                }
-                System.arraycopy(y, 0, workd, yOffset, n);
+                laplacian.multiply(workd, ipntr[0] - 1, workd, ipntr[1] - 1, workspace);
             }
         }
 
@@ -129,6 +238,7 @@ public final class GraphEigenvalues
         {
             throw new RuntimeException("ARPACK dsaupd error: " + info.val);
         }
+        System.out.println("[GraphEigenvalues] Converged after " + iparam[2] + " restarts, " + iparam[8] + " matrix-vector products.");
 
         // Retrieve eigenpairs
         boolean[] select = new boolean[ncv];
@@ -164,6 +274,126 @@ public final class GraphEigenvalues
         return new EigenResult(d, Z, n, p);
     }
 
+    /**
+     * Builds approximate eigenpairs from an interrupted ARPACK run (Rayleigh-Ritz).
+     * The constant vector and the Lanczos vectors in V are orthonormalized, the Laplacian
+     * is projected onto that subspace and the small dense problem is solved with LAPACK.
+     *
+     * @param laplacian Laplacian matrix in half storage.
+     * @param workspace Product workspace of the Laplacian.
+     * @param V ARPACK basis array (n * ncv, column-major).
+     * @param ncv Number of basis columns in V.
+     * @param p Number of eigenpairs to return.
+     * @return Approximate EigenResult (Ritz values and Ritz vectors).
+     */
+    private static EigenResult rayleighRitz(SymmetricCSRmatrix laplacian, SymmetricCSRmatrix.Workspace workspace, double[] V, int ncv, int p)
+    {
+        int n = laplacian.size();
+        double[][] basis = new double[ncv + 1 + p][];
+        int m = 0;
+
+        // The constant vector is the exact null vector of a Laplacian
+        double[] constant = new double[n];
+        Arrays.fill(constant, 1.0 / Math.sqrt(n));
+        m = addOrthonormal(basis, m, constant);
+        for (int k = 0; k < ncv; k++)
+        {
+            m = addOrthonormal(basis, m, Arrays.copyOfRange(V, k * n, (k + 1) * n));
+        }
+        // Pad with fixed-seed random directions if the basis is still too small
+        java.util.Random random = new java.util.Random(42);
+        while (m < p)
+        {
+            double[] v = new double[n];
+            for (int j = 0; j < n; j++) v[j] = random.nextDouble() - 0.5;
+            m = addOrthonormal(basis, m, v);
+        }
+
+        // H = Q^T * L * Q (column-major for LAPACK)
+        double[] H = new double[m * m];
+        double[] Lq = new double[n];
+        for (int k = 0; k < m; k++)
+        {
+            laplacian.multiply(basis[k], 0, Lq, 0, workspace);
+            for (int i = 0; i < m; i++)
+            {
+                H[k * m + i] = dot(basis[i], Lq);
+            }
+        }
+
+        double[] w = new double[m];
+        intW info = new intW(0);
+        double[] query = new double[1];
+        LAPACK lapack = LAPACK.getInstance();
+        lapack.dsyev("V", "U", m, H, m, w, query, -1, info);
+        double[] work = new double[Math.max(1, (int) query[0])];
+        lapack.dsyev("V", "U", m, H, m, w, work, work.length, info);
+        if (info.val != 0)
+        {
+            throw new RuntimeException("LAPACK dsyev error: " + info.val);
+        }
+
+        // Ritz vectors for the p smallest Ritz values (dsyev sorts ascending)
+        double[] d = Arrays.copyOf(w, p);
+        double[] Z = new double[n * p];
+        for (int i = 0; i < p; i++)
+        {
+            for (int k = 0; k < m; k++)
+            {
+                double coefficient = H[i * m + k];
+                double[] q = basis[k];
+                for (int j = 0; j < n; j++)
+                {
+                    Z[j * p + i] += coefficient * q[j];
+                }
+            }
+        }
+        return new EigenResult(d, Z, n, p);
+    }
+
+    /**
+     * Orthonormalizes a vector against the basis (two passes of modified Gram-Schmidt)
+     * and appends it if it is not (numerically) linearly dependent.
+     *
+     * @param basis Basis array to append to.
+     * @param size Current number of basis vectors.
+     * @param v Candidate vector (modified in place).
+     * @return New number of basis vectors.
+     */
+    private static int addOrthonormal(double[][] basis, int size, double[] v)
+    {
+        double originalNorm = Math.sqrt(dot(v, v));
+        if (originalNorm == 0.0) return size;
+        for (int pass = 0; pass < 2; pass++)
+        {
+            for (int k = 0; k < size; k++)
+            {
+                double projection = dot(basis[k], v);
+                double[] q = basis[k];
+                for (int j = 0; j < v.length; j++) v[j] -= projection * q[j];
+            }
+        }
+        double norm = Math.sqrt(dot(v, v));
+        if (norm <= 1e-8 * originalNorm) return size;
+        for (int j = 0; j < v.length; j++) v[j] /= norm;
+        basis[size] = v;
+        return size + 1;
+    }
+
+    /**
+     * Computes the dot product of two vectors of equal length.
+     *
+     * @param a First vector.
+     * @param b Second vector.
+     * @return Dot product.
+     */
+    private static double dot(double[] a, double[] b)
+    {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
     /**
      * Prints eigenvalues and eigenvectors to the console.
      * Uses ANSI color codes for readability.
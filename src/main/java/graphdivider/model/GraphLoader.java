@@ -22,6 +22,13 @@ public final class GraphLoader
     /**
      * Loads a GraphModel from a .csrrg file.
      * The file must have 5 lines: maxVerticesPerRow, rowPositions, rowStartIndices, adjacencyList, adjacencyPointers.
+     * Two optional lines may follow (either may be empty):
+     * <ol>
+     *     <li>line 6: the weight of each vertex (one positive integer per vertex),</li>
+     *     <li>line 7: the weight of each edge, one positive integer per neighbour entry of line 4
+     *         (group heads have no weight), in the same order.</li>
+     * </ol>
+     * Missing weights are 1.
      *
      * @param file File to load from.
      * @return GraphModel object built from file data.
@@ -44,6 +51,27 @@ public final class GraphLoader
             int[] adjacencyList = parseIntArray(lines[3]);
             int[] adjacencyPointers = parseIntArray(lines[4]);
 
+            // Optional weight section
+            String vertexWeightsLine = reader.readLine();
+            String edgeWeightsLine = vertexWeightsLine != null ? reader.readLine() : null;
+            int[] vertexWeights = null;
+            if (vertexWeightsLine != null && !vertexWeightsLine.isBlank())
+            {
+                vertexWeights = parseWeights(vertexWeightsLine, rowPositions.length, "vertex", file);
+            }
+            int[] edgeWeights = null;
+            if (edgeWeightsLine != null && !edgeWeightsLine.isBlank())
+            {
+                int[] weights = parseWeights(edgeWeightsLine, adjacencyList.length - adjacencyPointers.length, "edge", file);
+                edgeWeights = expandEdgeWeights(weights, adjacencyList.length, adjacencyPointers);
+            }
+            if (vertexWeights != null || edgeWeights != null)
+            {
+                System.out.println("[GraphLoader] Loaded " + (vertexWeights != null ? "vertex" : "")
+                        + (vertexWeights != null && edgeWeights != null ? " and " : "")
+                        + (edgeWeights != null ? "edge" : "") + " weights.");
+            }
+
             // Build and return model
             return new GraphModel
             (
@@ -51,13 +79,15 @@ public final class GraphLoader
                 rowPositions,
                 rowStartIndices,
                 adjacencyList,
-                adjacencyPointers
+                adjacencyPointers,
+                vertexWeights,
+                edgeWeights
             );
         }
     }
 
     /**
-     * Converts a GraphModel to a CSRmatrix.
+     * Converts a GraphModel to a CSRmatrix (edge weights as values).
      * 
      * @param model GraphModel to convert.
      * @return CSRmatrix representation of the graph.
@@ -66,6 +96,7 @@ public final class GraphLoader
     {
         int[] adjacencyList = model.getAdjacencyList();
         int[] adjacencyPointers = model.getAdjacencyPointers();
+        int[] edgeWeights = model.getEdgeWeights();
         int size = adjacencyPointers.length;
 
         int[] rowPtr = new int[size + 1];
@@ -89,7 +120,7 @@ public final class GraphLoader
             for (int j = start + 1; j < end; j++)
             {
                 colInd[idx] = adjacencyList[j];
-                values[idx] = 1;
+                values[idx] = edgeWeights != null ? edgeWeights[j] : 1;
                 idx++;
             }
         }
@@ -100,6 +131,8 @@ public final class GraphLoader
     /**
      * Converts a GraphModel to a Laplacian CSRmatrix.
      * The Laplacian matrix is useful for spectral graph algorithms.
+     * With edge weights it is the weighted Laplacian: weighted degree on the diagonal, negated weights
+     * elsewhere (an edge listed twice keeps the weight of its last entry).
      *
      * @param model GraphModel to convert.
      * @return Laplacian CSRmatrix.
@@ -108,26 +141,28 @@ public final class GraphLoader
     {
         int[] adjacencyList = model.getAdjacencyList();
         int[] adjacencyPointers = model.getAdjacencyPointers();
+        int[] edgeWeights = model.getEdgeWeights();
 
         int maxVertex = Arrays.stream(adjacencyList).max().orElse(-1);
         int size = maxVertex + 1;
 
-        // Build neighbor map for each vertex
-        java.util.Map<Integer, java.util.Set<Integer>> neighborsMap = new java.util.HashMap<>();
+        // Build neighbor map (neighbor -> edge weight) for each vertex
+        java.util.Map<Integer, java.util.Map<Integer, Integer>> neighborsMap = new java.util.HashMap<>();
         for (int i = 0; i < adjacencyPointers.length; i++)
         {
             int start = adjacencyPointers[i];
             int end = (i + 1 < adjacencyPointers.length) ? adjacencyPointers[i + 1] : adjacencyList.length;
             int vertex = adjacencyList[start];
-            neighborsMap.putIfAbsent(vertex, new java.util.HashSet<>());
+            neighborsMap.putIfAbsent(vertex, new java.util.HashMap<>());
             for (int j = start + 1; j < end; j++)
             {
                 int neighbor = adjacencyList[j];
                 if (neighbor != vertex)
                 {
-                    neighborsMap.get(vertex).add(neighbor);
-                    neighborsMap.putIfAbsent(neighbor, new java.util.HashSet<>());
-                    neighborsMap.get(neighbor).add(vertex);
+                    int weight = edgeWeights != null ? edgeWeights[j] : 1;
+                    neighborsMap.get(vertex).put(neighbor, weight);
+                    neighborsMap.putIfAbsent(neighbor, new java.util.HashMap<>());
+                    neighborsMap.get(neighbor).put(vertex, weight);
                 }
             }
         }
@@ -140,15 +175,17 @@ public final class GraphLoader
         for (int i = 0; i < size; i++)
         {
             rowPtr[i] = idx;
-            java.util.Set<Integer> neighbors = neighborsMap.getOrDefault(i, java.util.Collections.emptySet());
+            java.util.Map<Integer, Integer> neighbors = neighborsMap.getOrDefault(i, java.util.Collections.emptyMap());
             colIndList.add(i);
-            valuesList.add(neighbors.size());
+            int degree = 0;
+            for (int weight : neighbors.values()) degree += weight;
+            valuesList.add(degree);
             idx++;
-            for (int neighbor : neighbors)
+            for (java.util.Map.Entry<Integer, Integer> neighbor : neighbors.entrySet())
             {
-                if (neighbor == i) continue;
-                colIndList.add(neighbor);
-                valuesList.add(-1);
+                if (neighbor.getKey() == i) continue;
+                colIndList.add(neighbor.getKey());
+                valuesList.add(-neighbor.getValue());
                 idx++;
             }
         }
@@ -160,6 +197,96 @@ public final class GraphLoader
         return new CSRmatrix(rowPtr, colInd, values, size);
     }
 
+    /**
+     * Extracts the symmetric, vertex-indexed adjacency matrix from a Laplacian.
+     * Drops the diagonal and negates off-diagonal entries, so values hold edge weights.
+     *
+     * @param laplacian Laplacian CSRmatrix.
+     * @return Symmetric adjacency CSRmatrix (no diagonal).
+     */
+    public static CSRmatrix toAdjacencyCSRmatrix(CSRmatrix laplacian)
+    {
+        int size = laplacian.size();
+        int[] lapRowPtr = laplacian.getRowPtr();
+        int[] lapColInd = laplacian.getColInd();
+        int[] lapValues = laplacian.getValues();
+
+        int[] rowPtr = new int[size + 1];
+        int[] colInd = new int[lapColInd.length];
+        int[] values = new int[lapColInd.length];
+        int idx = 0;
+        for (int i = 0; i < size; i++)
+        {
+            rowPtr[i] = idx;
+            for (int j = lapRowPtr[i]; j < lapRowPtr[i + 1]; j++)
+            {
+                if (lapColInd[j] == i) continue;
+                colInd[idx] = lapColInd[j];
+                values[idx] = -lapValues[j];
+                idx++;
+            }
+        }
+        rowPtr[size] = idx;
+
+        return new CSRmatrix(rowPtr, Arrays.copyOf(colInd, idx), Arrays.copyOf(values, idx), size);
+    }
+
+    /**
+     * Parses a line of positive weights.
+     *
+     * @param line Semicolon-separated weights.
+     * @param expected Expected number of weights.
+     * @param kind "vertex" or "edge" (for the error message).
+     * @param file Source file (for the error message).
+     * @return Parsed weights.
+     * @throws IOException if the count does not match or a weight is not positive.
+     */
+    private static int[] parseWeights(String line, int expected, String kind, File file) throws IOException
+    {
+        int[] weights;
+        try
+        {
+            weights = parseIntArray(line);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Malformed " + kind + " weights in " + file.getName() + ": " + e.getMessage());
+        }
+        if (weights.length != expected)
+        {
+            throw new IOException("Expected " + expected + " " + kind + " weights in " + file.getName() + ", found " + weights.length + ".");
+        }
+        for (int weight : weights)
+        {
+            if (weight <= 0)
+            {
+                throw new IOException("The " + kind + " weights in " + file.getName() + " must be positive, found " + weight + ".");
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Spreads per-neighbour edge weights over the adjacency list (group heads get 0).
+     *
+     * @param weights Weight of each neighbour entry, in adjacency list order.
+     * @param length Length of the adjacency list.
+     * @param adjacencyPointers Start of each group in the adjacency list.
+     * @return Weights parallel to the adjacency list.
+     */
+    private static int[] expandEdgeWeights(int[] weights, int length, int[] adjacencyPointers)
+    {
+        int[] expanded = new int[length];
+        int next = 0;
+        for (int i = 0; i < adjacencyPointers.length; i++)
+        {
+            int start = adjacencyPointers[i];
+            int end = (i + 1 < adjacencyPointers.length) ? adjacencyPointers[i + 1] : length;
+            for (int j = start + 1; j < end; j++) expanded[j] = weights[next++];
+        }
+        return expanded;
+    }
+
     /**
      * Parses an int array from a semicolon-separated string.
      *
@@ -16,6 +16,10 @@ public final class GraphModel
     private final int[] adjacencyList;
     // Pointers to adjacency list for each vertex
     private final int[] adjacencyPointers;
+    // Weight of each vertex (null = unit weights)
+    private final int[] vertexWeights;
+    // Weight of each adjacency list entry, parallel to adjacencyList (group heads unused; null = unit weights)
+    private final int[] edgeWeights;
 
     /**
      * Creates a graph model from the provided arrays.
@@ -35,6 +39,33 @@ public final class GraphModel
         int[] adjacencyList,
         int[] adjacencyPointers
     )
+    {
+        this(maxVerticesPerRow, rowPositions, rowStartIndices, adjacencyList, adjacencyPointers, null, null);
+    }
+
+    /**
+     * Creates a weighted graph model from the provided arrays.
+     * Arrays are assumed to be safe to use directly (not copied).
+     *
+     * @param maxVerticesPerRow Maximum number of vertices in any row.
+     * @param rowPositions Array of row positions for each vertex.
+     * @param rowStartIndices Array of start indices for each row in adjacency list.
+     * @param adjacencyList Adjacency list in CSR format.
+     * @param adjacencyPointers Pointers to adjacency list for each vertex.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param edgeWeights Weight of each adjacency list entry (parallel to adjacencyList, group heads unused),
+     *                    or null for unit weights.
+     */
+    public GraphModel
+    (
+        int maxVerticesPerRow,
+        int[] rowPositions,
+        int[] rowStartIndices,
+        int[] adjacencyList,
+        int[] adjacencyPointers,
+        int[] vertexWeights,
+        int[] edgeWeights
+    )
     {
         this.maxVerticesPerRow  = maxVerticesPerRow;
         // Arrays are assumed safe to use directly
@@ -42,6 +73,8 @@ public final class GraphModel
         this.rowStartIndices = rowStartIndices;
         this.adjacencyList = adjacencyList;
         this.adjacencyPointers = adjacencyPointers;
+        this.vertexWeights = vertexWeights;
+        this.edgeWeights = edgeWeights;
     }
 
     /**
@@ -94,6 +127,26 @@ public final class GraphModel
         return adjacencyPointers; 
     }
 
+    /**
+     * Gets the vertex weights.
+     *
+     * @return Weight of each vertex, or null if all vertices weigh 1.
+     */
+    public int[] getVertexWeights()
+    {
+        return vertexWeights;
+    }
+
+    /**
+     * Gets the edge weights.
+     *
+     * @return Weight of each adjacency list entry (group heads unused), or null if all edges weigh 1.
+     */
+    public int[] getEdgeWeights()
+    {
+        return edgeWeights;
+    }
+
     /**
      * Gets the CSRmatrix representation of the graph.
      *
@@ -0,0 +1,210 @@
+package graphdivider.model;
+
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+/**
+ * Two-level partitioning for a nodes x cores topology.
+ * <ol>
+ *     <li>the whole graph is split into one part per node,</li>
+ *     <li>the subgraph induced by every node part is split into one subpart per core,
+ *         with all node parts running in parallel,</li>
+ *     <li>the combined assignment is refined with cut edges between nodes costing the inter-node
+ *         weight and cut edges inside a node costing 1 ({@link KWayRefinement#refineGrouped}).</li>
+ * </ol>
+ * Cut edges between nodes cost more than cut edges inside a node, so the node level is solved first
+ * on the full graph: the inter-node cut is minimized before the intra-node cut. The final pass then
+ * trades cuts between the levels by the weight (a higher weight moves cut edges from between nodes
+ * into nodes). The weighted cut reports the combined cost.
+ */
+public final class HierarchicalPartitioner
+{
+    // Default cost of an inter-node cut edge relative to an intra-node one
+    public static final double DEFAULT_INTER_NODE_WEIGHT = 4.0;
+    // Cut costs in the final refinement are integers: an intra-node cut costs this much, so the
+    // inter-node weight is resolved to 1 / COST_SCALE
+    private static final int COST_SCALE = 10;
+
+    /**
+     * Outcome of a two-level partition.
+     *
+     * @param nodes Node index (1..nodeCount) of each vertex.
+     * @param cores Core index (1..coresPerNode) of each vertex within its node.
+     * @param clusters Global part index (node - 1) * coresPerNode + core of each vertex.
+     * @param coresPerNode Number of cores per node.
+     * @param interNodeWeight Cost of an edge cut between nodes relative to one cut inside a node.
+     * @param nodeMetrics Metrics of the node-level assignment.
+     * @param metrics Metrics of the global assignment (all nodeCount * coresPerNode parts).
+     * @param elapsedMillis Wall-clock time of both levels in milliseconds.
+     */
+    public record Result(int[] nodes, int[] cores, int[] clusters, int coresPerNode, double interNodeWeight,
+                         PartitionMetrics nodeMetrics, PartitionMetrics metrics, long elapsedMillis)
+    {
+        /**
+         * Gets the number of nodes.
+         *
+         * @return Node count.
+         */
+        public int nodeCount()
+        {
+            return nodeMetrics.partSizes().length;
+        }
+
+        /**
+         * Gets the number of edges between different nodes.
+         *
+         * @return Inter-node edge cut.
+         */
+        public int interNodeEdgesCut()
+        {
+            return nodeMetrics.edgesCut();
+        }
+
+        /**
+         * Gets the number of edges between different cores of the same node.
+         *
+         * @return Intra-node edge cut.
+         */
+        public int intraNodeEdgesCut()
+        {
+            return metrics.edgesCut() - nodeMetrics.edgesCut();
+        }
+
+        /**
+         * Gets the communication cost with inter-node cuts weighted.
+         *
+         * @return interNodeWeight * inter-node cut + intra-node cut.
+         */
+        public double weightedEdgesCut()
+        {
+            return interNodeWeight * interNodeEdgesCut() + intraNodeEdgesCut();
+        }
+
+        /**
+         * Prints the per-level cut to the console.
+         */
+        public void print()
+        {
+            System.out.println("[HierarchicalPartitioner] " + nodeCount() + " nodes x " + coresPerNode + " cores: inter-node cut "
+                    + interNodeEdgesCut() + ", intra-node cut " + intraNodeEdgesCut() + ", weighted cut "
+                    + String.format("%.1f", weightedEdgesCut()) + " (weight " + interNodeWeight + ") in " + elapsedMillis + " ms");
+        }
+    }
+
+    // Prevent instantiation of utility class
+    private HierarchicalPartitioner() {}
+
+    /**
+     * Partitions a graph into nodes, then every node part into cores.
+     * The engine splits both levels; an engine that needs the layout (see {@link Partitioner#needsLayout()})
+     * only splits the node level, and the multilevel engine splits the subgraphs. The weight then drives
+     * a final refinement of the combined assignment.
+     *
+     * @param request Graph and settings; request.parts() is the number of nodes.
+     * @param coresPerNode Number of cores per node (1 keeps the node level only).
+     * @param engine Partitioning engine.
+     * @param interNodeWeight Cost of an inter-node cut edge relative to an intra-node one (at least 1, resolved to 0.1).
+     * @param job Cancellation flag and time budget (shared by both levels).
+     * @return Two-level assignment with per-level metrics.
+     * @throws IllegalArgumentException if coresPerNode or the weight is invalid, or a node part has fewer vertices than cores.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws Exception if the engine fails.
+     */
+    public static Result partition(PartitionRequest request, int coresPerNode, Partitioner engine,
+                                   double interNodeWeight, JobControl job) throws Exception
+    {
+        if (coresPerNode < 1)
+        {
+            throw new IllegalArgumentException("Cores per node must be at least 1: " + coresPerNode);
+        }
+        if (interNodeWeight < 1.0)
+        {
+            throw new IllegalArgumentException("Inter-node weight must be at least 1: " + interNodeWeight);
+        }
+        long start = System.nanoTime();
+        CSRmatrix adjacency = request.adjacency();
+        int n = adjacency.size();
+        int nodeCount = request.parts();
+
+        // Level 1: nodes on the full graph
+        int[] nodes = engine.partition(request, job).clusters();
+
+        // Subgraph of every node part, built in one pass over the matrix
+        CSRmatrix.InducedPart[] parts = CSRmatrix.inducedParts(adjacency, nodes, nodeCount);
+
+        // Level 2: cores inside every node part, in parallel
+        int[] cores = new int[n];
+        Partitioner coreEngine = engine.needsLayout() ? Partitioners.byId("multilevel") : engine;
+        try
+        {
+            IntStream.range(0, nodeCount).parallel().forEach(c ->
+            {
+                int[] vertices = parts[c].vertices();
+                if (coresPerNode == 1)
+                {
+                    for (int v : vertices) cores[v] = 1;
+                    return;
+                }
+                if (vertices.length < coresPerNode)
+                {
+                    throw new IllegalArgumentException("Node " + (c + 1) + " has " + vertices.length
+                            + " vertices, fewer than " + coresPerNode + " cores.");
+                }
+                if (vertices.length == coresPerNode)
+                {
+                    // One vertex per core; spectral engines cannot solve for as many pairs as vertices
+                    for (int k = 0; k < vertices.length; k++) cores[vertices[k]] = k + 1;
+                    return;
+                }
+                int[] subWeights = null;
+                if (request.vertexWeights() != null)
+                {
+                    subWeights = new int[vertices.length];
+                    for (int k = 0; k < vertices.length; k++) subWeights[k] = request.vertexWeights()[vertices[k]];
+                }
+                PartitionRequest subRequest = new PartitionRequest(parts[c].subgraph(), null, null, coresPerNode,
+                        request.marginPercent(), request.clustering(), request.startVector(), subWeights);
+                int[] subClusters;
+                try
+                {
+                    subClusters = coreEngine.partition(subRequest, job).clusters();
+                }
+                catch (RuntimeException ex)
+                {
+                    throw ex;
+                }
+                catch (Exception ex)
+                {
+                    throw new CompletionException(ex);
+                }
+                for (int k = 0; k < vertices.length; k++) cores[vertices[k]] = subClusters[k];
+            });
+        }
+        catch (CompletionException ex)
+        {
+            throw (Exception) ex.getCause();
+        }
+
+        int[] clusters = new int[n];
+        for (int v = 0; v < n; v++) clusters[v] = (nodes[v] - 1) * coresPerNode + cores[v];
+
+        // Final pass: inter-node cuts cost interNodeWeight, intra-node cuts 1
+        if (coresPerNode > 1)
+        {
+            int interNodeCost = (int) Math.round(interNodeWeight * COST_SCALE);
+            KWayRefinement.refineGrouped(adjacency, clusters, nodeCount * coresPerNode, coresPerNode, COST_SCALE,
+                    interNodeCost, request.vertexWeights(), request.marginPercent(), job);
+            for (int v = 0; v < n; v++)
+            {
+                nodes[v] = (clusters[v] - 1) / coresPerNode + 1;
+                cores[v] = (clusters[v] - 1) % coresPerNode + 1;
+            }
+        }
+        PartitionMetrics nodeMetrics = PartitionMetrics.compute(adjacency, nodes, nodeCount, request.vertexWeights());
+        PartitionMetrics metrics = PartitionMetrics.compute(adjacency, clusters, nodeCount * coresPerNode, request.vertexWeights());
+        Result result = new Result(nodes, cores, clusters, coresPerNode, interNodeWeight, nodeMetrics, metrics,
+                (System.nanoTime() - start) / 1_000_000L);
+        result.print();
+        return result;
+    }
+}
@@ -0,0 +1,236 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+
+/**
+ * Repairs an existing partition after a {@link GraphDelta} instead of partitioning from scratch.
+ * <ol>
+ *     <li>new vertices join the part most of their already placed neighbours are in
+ *         (the lightest part if they have none or that part is full),</li>
+ *     <li>greedy k-way refinement ({@link KWayRefinement}) starts from the touched vertices and their
+ *         neighbours only and spreads just as far as vertices keep moving.</li>
+ * </ol>
+ * The old assignment is the warm start: no eigen solve runs, and the edge cut is carried over from the old one,
+ * corrected on the edges of the touched and moved vertices. All work that looks at edges is therefore
+ * proportional to the changed region; what still grows with the graph is copying, O(V + E) for the changed
+ * matrix (see {@link GraphDelta#apply}) and O(V) for the refinement state and the assignment arrays.
+ */
+public final class IncrementalRepartitioner
+{
+    /**
+     * Outcome of a repair.
+     *
+     * @param clusters Cluster index (1..p) of each vertex of the changed graph.
+     * @param touchedVertices Vertices touched by the delta (endpoints of changed edges and new vertices).
+     * @param movedVertices Existing vertices whose part changed.
+     * @param edgesCutBefore Edge cut of the old assignment (new vertices placed) on the changed graph.
+     * @param edgesCutAfter Edge cut after the repair.
+     * @param elapsedMillis Wall-clock time of the repair in milliseconds.
+     */
+    public record RepairResult(int[] clusters, int touchedVertices, int movedVertices,
+                               int edgesCutBefore, int edgesCutAfter, long elapsedMillis)
+    {
+        /**
+         * Gets the fraction of the existing vertices that changed part.
+         *
+         * @param previousSize Number of vertices before the delta.
+         * @return Moved fraction between 0 and 1.
+         */
+        public double movedFraction(int previousSize)
+        {
+            return previousSize > 0 ? (double) movedVertices / previousSize : 0.0;
+        }
+    }
+
+    /**
+     * Changed graph together with its repaired partition.
+     *
+     * @param adjacency Adjacency matrix after the delta.
+     * @param result Repair result for that matrix.
+     */
+    public record Repaired(CSRmatrix adjacency, RepairResult result) {}
+
+    // Prevent instantiation of utility class
+    private IncrementalRepartitioner() {}
+
+    /**
+     * Applies a delta to a graph and repairs its partition.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix before the delta.
+     * @param clusters Cluster index (1..p) of each vertex before the delta (not modified).
+     * @param edgesCut Edge cut of clusters on the graph before the delta (e.g. {@link PartitionResult#edgesCut()}).
+     * @param p Number of parts.
+     * @param delta Changes to apply.
+     * @param vertexWeights Weight of each vertex of the changed graph (balance is kept by weight), or null for unit weights.
+     * @param marginPercent Allowed margin in percent (see {@link GraphClusterization#calculateMargin}).
+     * @param job Cancellation flag and time budget.
+     * @return The changed adjacency matrix and the repair result.
+     * @throws IllegalArgumentException if clusters does not match the matrix size or vertexWeights the changed one.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static Repaired applyAndRepair(CSRmatrix adjacency, int[] clusters, int edgesCut, int p, GraphDelta delta,
+                                          int[] vertexWeights, double marginPercent, JobControl job)
+    {
+        long start = System.nanoTime();
+        int previousSize = adjacency.size();
+        if (clusters.length != previousSize)
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length
+                    + " does not match matrix size " + previousSize + ".");
+        }
+        if (vertexWeights != null && vertexWeights.length != previousSize + delta.getAddedVertices())
+        {
+            throw new IllegalArgumentException("Vertex weights length " + vertexWeights.length + " does not match the "
+                    + (previousSize + delta.getAddedVertices()) + " vertices of the changed graph.");
+        }
+        CSRmatrix changed = delta.apply(adjacency);
+        int n = changed.size();
+        int[] rowPtr = changed.getRowPtr();
+        int[] colInd = changed.getColInd();
+
+        boolean[] touched = delta.touchedVertices(n);
+        int touchedCount = 0;
+        for (boolean flag : touched)
+        {
+            if (flag) touchedCount++;
+        }
+        int[] touchedList = new int[touchedCount];
+        for (int v = 0, k = 0; v < n; v++)
+        {
+            if (touched[v]) touchedList[k++] = v;
+        }
+
+        int[] repaired = place(changed, clusters, p, vertexWeights, marginPercent);
+
+        // Only edges at touched vertices were added, removed or got a new endpoint
+        int edgesCutBefore = edgesCut - localEdgesCut(adjacency, clusters, touched, touchedList)
+                + localEdgesCut(changed, repaired, touched, touchedList);
+
+        // Refinement starts at the touched vertices and their neighbours
+        boolean[] active = new boolean[n];
+        int[] activeList = new int[touchedCount];
+        int activeCount = 0;
+        for (int v : touchedList)
+        {
+            int needed = activeCount + 1 + rowPtr[v + 1] - rowPtr[v];
+            if (needed > activeList.length) activeList = Arrays.copyOf(activeList, Math.max(2 * activeList.length, needed));
+            if (!active[v])
+            {
+                active[v] = true;
+                activeList[activeCount++] = v;
+            }
+            for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+            {
+                int u = colInd[idx];
+                if (active[u]) continue;
+                active[u] = true;
+                activeList[activeCount++] = u;
+            }
+        }
+
+        int[] placed = repaired.clone();
+        KWayRefinement.refine(changed, repaired, p, vertexWeights, marginPercent, Arrays.copyOf(activeList, activeCount), job);
+
+        // The cut only changes on the edges of moved vertices (edges between two moved vertices counted once)
+        int moved = 0;
+        int edgesCutAfter = edgesCutBefore;
+        for (int v = 0; v < n; v++)
+        {
+            if (repaired[v] == placed[v]) continue;
+            if (v < previousSize) moved++;
+            for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+            {
+                int u = colInd[idx];
+                if (u < v && repaired[u] != placed[u]) continue;
+                if (repaired[v] != repaired[u]) edgesCutAfter++;
+                if (placed[v] != placed[u]) edgesCutAfter--;
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        System.out.println("[IncrementalRepartitioner] " + touchedCount + " touched, " + moved + " moved, edges cut "
+                + edgesCutBefore + " -> " + edgesCutAfter + " in " + elapsedMillis + " ms");
+        return new Repaired(changed, new RepairResult(repaired, touchedCount, moved, edgesCutBefore, edgesCutAfter, elapsedMillis));
+    }
+
+    /**
+     * Keeps the old parts and places every new vertex next to its placed neighbours, within the upper weight bound
+     * (the same bound {@link KWayRefinement} keeps).
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix after the change.
+     * @param clusters Cluster index (1..p) of the vertices that existed before; vertices with higher ids are new.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     * @return Cluster index (1..p) of every vertex of the changed graph.
+     */
+    private static int[] place(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights, double marginPercent)
+    {
+        int n = adjacency.size();
+        int previousSize = clusters.length;
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+
+        int[] placed = new int[n];
+        System.arraycopy(clusters, 0, placed, 0, previousSize);
+        long[] partWeights = new long[p];
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++) totalWeight += vertexWeights != null ? vertexWeights[i] : 1;
+        for (int i = 0; i < previousSize; i++) partWeights[clusters[i] - 1] += vertexWeights != null ? vertexWeights[i] : 1;
+
+        double average = (double) totalWeight / p;
+        double e = marginPercent / (200.0 + marginPercent);
+        long capacity = (long) Math.max(Math.ceil(average), Math.floor(average * (1.0 + e)));
+        int[] connection = new int[p];
+        for (int v = previousSize; v < n; v++)
+        {
+            for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+            {
+                int u = colInd[idx];
+                if (placed[u] != 0) connection[placed[u] - 1] += values[idx];
+            }
+            long w = vertexWeights != null ? vertexWeights[v] : 1;
+            int best = 0;
+            for (int c = 1; c < p; c++)
+            {
+                if (partWeights[c] < partWeights[best]) best = c;
+            }
+            for (int c = 0; c < p; c++)
+            {
+                if (partWeights[c] + w <= capacity && connection[c] > connection[best]) best = c;
+            }
+            Arrays.fill(connection, 0);
+            placed[v] = best + 1;
+            partWeights[best] += w;
+        }
+        return placed;
+    }
+
+    /**
+     * Counts the cut edges that have a touched endpoint (edges between two touched vertices counted once).
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix.
+     * @param clusters Cluster index of each vertex of the matrix.
+     * @param touched Touched flag per vertex of the changed graph (at least the matrix size).
+     * @param touchedList Touched vertices in ascending order.
+     * @return Number of cut edges at touched vertices.
+     */
+    private static int localEdgesCut(CSRmatrix adjacency, int[] clusters, boolean[] touched, int[] touchedList)
+    {
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int edgesCut = 0;
+        for (int v : touchedList)
+        {
+            if (v >= adjacency.size()) break;
+            for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+            {
+                int u = colInd[idx];
+                if (touched[u] && u < v) continue;
+                if (clusters[v] != clusters[u]) edgesCut++;
+            }
+        }
+        return edgesCut;
+    }
+}
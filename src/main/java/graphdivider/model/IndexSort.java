@@ -0,0 +1,120 @@
+package graphdivider.model;
+
+/**
+ * Sorting of primitive index arrays by primitive keys.
+ * Avoids boxing indices into Integer[] and sorting them with a Comparator.
+ */
+public final class IndexSort
+{
+    // Ranges up to this length are finished with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 24;
+
+    // Prevent instantiation of utility class
+    private IndexSort() {}
+
+    /**
+     * Sorts index[from, to) so that key[index[i]] is non-decreasing.
+     * Ties keep no particular order.
+     *
+     * @param index Index array to reorder in place.
+     * @param key Keys, looked up through the indices.
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     */
+    public static void sortByKey(int[] index, double[] key, int from, int to)
+    {
+        while (to - from > INSERTION_SORT_THRESHOLD)
+        {
+            int split = partition(index, key, from, to);
+            // Recurse into the smaller side, loop on the larger one (bounded stack depth)
+            if (split - from < to - split)
+            {
+                sortByKey(index, key, from, split);
+                from = split;
+            }
+            else
+            {
+                sortByKey(index, key, split, to);
+                to = split;
+            }
+        }
+        insertionSort(index, key, from, to);
+    }
+
+    /**
+     * Partially orders index[from, to) so that the k smallest keys occupy index[from, from + k)
+     * (in no particular order). Expected linear time (quickselect).
+     *
+     * @param index Index array to reorder in place.
+     * @param key Keys, looked up through the indices.
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     * @param k Number of smallest elements to move to the front (0 &lt;= k &lt;= to - from).
+     */
+    public static void selectByKey(int[] index, double[] key, int from, int to, int k)
+    {
+        int target = from + k;
+        while (to - from > INSERTION_SORT_THRESHOLD)
+        {
+            int split = partition(index, key, from, to);
+            if (split == target) return;
+            if (split < target) from = split;
+            else to = split;
+        }
+        insertionSort(index, key, from, to);
+    }
+
+    /**
+     * Hoare partition around a median-of-three pivot.
+     *
+     * @param index Index array.
+     * @param key Keys.
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     * @return Split point s (from < s < to): keys in [from, s) are &lt;= keys in [s, to).
+     */
+    private static int partition(int[] index, double[] key, int from, int to)
+    {
+        int mid = (from + to) >>> 1;
+        double a = key[index[from]];
+        double b = key[index[mid]];
+        double c = key[index[to - 1]];
+        double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+        int i = from - 1;
+        int j = to;
+        while (true)
+        {
+            do i++; while (key[index[i]] < pivot);
+            do j--; while (key[index[j]] > pivot);
+            if (i >= j) return j + 1;
+            int tmp = index[i];
+            index[i] = index[j];
+            index[j] = tmp;
+        }
+    }
+
+    /**
+     * Insertion sort of a small range.
+     *
+     * @param index Index array.
+     * @param key Keys.
+     * @param from First position (inclusive).
+     * @param to Last position (exclusive).
+     */
+    private static void insertionSort(int[] index, double[] key, int from, int to)
+    {
+        for (int i = from + 1; i < to; i++)
+        {
+            int current = index[i];
+            double currentKey = key[current];
+            int j = i - 1;
+            while (j >= from && key[index[j]] > currentKey)
+            {
+                index[j + 1] = index[j];
+                j--;
+            }
+            index[j + 1] = current;
+        }
+    }
+}
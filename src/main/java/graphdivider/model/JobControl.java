@@ -0,0 +1,90 @@
+package graphdivider.model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation flag and wall-clock budget for a partitioning job.
+ * Long-running loops poll it: cancellation aborts the job, while an exhausted
+ * budget asks the job to finish early with the best result found so far.
+ */
+public final class JobControl
+{
+    // Set from the EDT when the user presses "Cancel"
+    private volatile boolean cancelled = false;
+    // Absolute deadline (System.nanoTime), or Long.MAX_VALUE for no budget
+    private final long deadlineNanos;
+
+    /**
+     * Creates a job control with the given wall-clock budget.
+     *
+     * @param budgetMillis Budget in milliseconds; zero or negative means unlimited.
+     */
+    public JobControl(long budgetMillis)
+    {
+        this.deadlineNanos = budgetMillis > 0
+                ? System.nanoTime() + budgetMillis * 1_000_000L
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates a job control without a time budget.
+     *
+     * @return New unlimited JobControl.
+     */
+    public static JobControl unlimited()
+    {
+        return new JobControl(0);
+    }
+
+    /**
+     * Requests cancellation of the job.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether cancellation was requested.
+     *
+     * @return True if the job was cancelled.
+     */
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the wall-clock budget has run out.
+     *
+     * @return True if the deadline has passed.
+     */
+    public boolean isBudgetExhausted()
+    {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Gets the remaining budget in milliseconds.
+     *
+     * @return Remaining milliseconds (0 if exhausted), or Long.MAX_VALUE if unlimited.
+     */
+    public long remainingMillis()
+    {
+        if (deadlineNanos == Long.MAX_VALUE) return Long.MAX_VALUE;
+        return Math.max(0, (deadlineNanos - System.nanoTime()) / 1_000_000L);
+    }
+
+    /**
+     * Throws if cancellation was requested.
+     *
+     * @throws CancellationException if the job was cancelled.
+     */
+    public void checkCancelled()
+    {
+        if (cancelled)
+        {
+            throw new CancellationException("Partitioning cancelled by user.");
+        }
+    }
+}
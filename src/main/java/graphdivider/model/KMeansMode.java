@@ -0,0 +1,41 @@
+package graphdivider.model;
+
+/**
+ * Variants of {@link BalancedKMeans}.
+ */
+public enum KMeansMode
+{
+    // Compute all n * p distances every iteration
+    LLOYD("Exact (Lloyd)", "Dokładny (Lloyd)"),
+    // Keep Hamerly distance bounds per vertex and skip vertices whose nearest centroid cannot have changed
+    HAMERLY("Exact (Hamerly bounds)", "Dokładny (ograniczenia Hamerly'ego)"),
+    // Update centroids from random vertex samples, then one full balanced assignment pass
+    MINI_BATCH("Mini-batch", "Mini-batch");
+
+    // Display names for the UI
+    private final String englishName;
+    private final String polishName;
+
+    KMeansMode(String englishName, String polishName)
+    {
+        this.englishName = englishName;
+        this.polishName = polishName;
+    }
+
+    /**
+     * Gets the display name in the requested language.
+     *
+     * @param polish True for Polish, false for English.
+     * @return Display name.
+     */
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? polishName : englishName;
+    }
+
+    @Override
+    public String toString()
+    {
+        return englishName;
+    }
+}
@@ -0,0 +1,486 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel greedy k-way refinement of a partition.
+ * Every round runs in two phases:
+ * <ol>
+ *     <li>each active boundary vertex proposes a move to the neighbouring part it is most strongly
+ *         connected to, if that reduces the cut (parallel over vertex chunks, read-only),</li>
+ *     <li>a proposal is kept only if no neighbour made a stronger proposal (higher gain, then lower index),
+ *         so no two adjacent vertices move in the same round and every kept gain is exact; kept moves are
+ *         applied in vertex order as long as both parts stay within the weight bounds.</li>
+ * </ol>
+ * Only moved vertices and their neighbours are active in the next round; every phase walks the list of
+ * active vertices, so late rounds and refinements started from a few vertices (see
+ * {@link #refine(CSRmatrix, int[], int, int[], double, int[], JobControl)}) cost what they touch.
+ * The bounds come from the margin (see {@link GraphClusterization#calculateMargin}): every part should stay within
+ * [avg * (1 - e), avg * (1 + e)] with (1 + e) / (1 - e) = 1 + margin / 100. Parts outside the bounds
+ * (e.g. after projecting a partition of weighted coarse vertices) are first rebalanced by moving their
+ * best-gain boundary vertices, even at a loss.
+ * Parts can also be grouped (e.g. the cores of one node, see {@link HierarchicalPartitioner}): a cut edge then
+ * costs more between groups than inside one, and gains are measured in that cost.
+ */
+public final class KWayRefinement
+{
+    // Vertices per parallel work unit
+    private static final int CHUNK_SIZE = 4096;
+    // Refinement stops after this many rounds or after the first round without moves
+    private static final int MAX_ROUNDS = 32;
+    // Rebalancing gives up after this many passes
+    private static final int MAX_REBALANCE_PASSES = 16;
+
+    // Graph (symmetric adjacency, no diagonal) and vertex weights
+    private final int n;
+    private final int p;
+    private final int[] rowPtr;
+    private final int[] colInd;
+    private final int[] values;
+    private final int[] vertexWeights;
+
+    // Parts per group (0 = no groups, every cut edge costs its value) and cut cost inside / between groups
+    private final int partsPerGroup;
+    private final int intraGroupCost;
+    private final int interGroupCost;
+
+    // Current part (0-based) of each vertex, weight per part and allowed weight range
+    private final int[] part;
+    private final long[] partWeight;
+    private final long lowerBound;
+    private final long upperBound;
+
+    // Per-vertex proposal: target part (-1 = none) and gain
+    private final int[] target;
+    private final int[] gain;
+
+    /**
+     * Prepares the refinement state.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values).
+     * @param clusters Cluster index (1..p) of each vertex.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     * @param partsPerGroup Parts per group (part c is in group c / partsPerGroup), or 0 for no groups.
+     * @param intraGroupCost Cost per unit of edge value cut between parts of the same group.
+     * @param interGroupCost Cost per unit of edge value cut between groups.
+     */
+    private KWayRefinement(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights, double marginPercent,
+                           int partsPerGroup, int intraGroupCost, int interGroupCost)
+    {
+        this.n = adjacency.size();
+        this.p = p;
+        this.rowPtr = adjacency.getRowPtr();
+        this.colInd = adjacency.getColInd();
+        this.values = adjacency.getValues();
+        this.vertexWeights = vertexWeights;
+        this.partsPerGroup = partsPerGroup;
+        this.intraGroupCost = intraGroupCost;
+        this.interGroupCost = interGroupCost;
+
+        this.part = new int[n];
+        this.partWeight = new long[p];
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++)
+        {
+            part[i] = clusters[i] - 1;
+            partWeight[part[i]] += weight(i);
+            totalWeight += weight(i);
+        }
+
+        double average = (double) totalWeight / p;
+        double e = marginPercent / (200.0 + marginPercent);
+        this.lowerBound = (long) Math.ceil(average * (1.0 - e));
+        this.upperBound = Math.max(lowerBound, (long) Math.floor(average * (1.0 + e)));
+
+        this.target = new int[n];
+        Arrays.fill(target, -1);
+        this.gain = new int[n];
+    }
+
+    /**
+     * Refines a k-way partition in place.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values, diagonal ignored).
+     * @param clusters Cluster index (1..p) of each vertex; updated in place.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     * @param job Cancellation flag and time budget (no new round starts once the budget is exhausted).
+     * @return Reduction of the (weighted) edge cut; negative if rebalancing cost more than refinement gained.
+     * @throws IllegalArgumentException if clusters does not match the matrix size.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static int refine(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights,
+                             double marginPercent, JobControl job)
+    {
+        return refine(adjacency, clusters, p, vertexWeights, marginPercent, null, job);
+    }
+
+    /**
+     * Refines a k-way partition in place, starting from a subset of the vertices.
+     * The first round only considers the given vertices; later rounds spread to the neighbours
+     * of moved vertices as usual, so the rounds stay local to the changed region
+     * (setting up the state still takes O(n)).
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values, diagonal ignored).
+     * @param clusters Cluster index (1..p) of each vertex; updated in place.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     * @param initialActive Vertices considered in the first round (any order, no duplicates), or null for all.
+     * @param job Cancellation flag and time budget (no new round starts once the budget is exhausted).
+     * @return Reduction of the (weighted) edge cut; negative if rebalancing cost more than refinement gained.
+     * @throws IllegalArgumentException if clusters does not match the matrix size or a vertex is out of range.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static int refine(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights,
+                             double marginPercent, int[] initialActive, JobControl job)
+    {
+        if (initialActive != null)
+        {
+            for (int v : initialActive)
+            {
+                if (v < 0 || v >= adjacency.size())
+                {
+                    throw new IllegalArgumentException("Active vertex " + v + " out of range [0, " + adjacency.size() + ").");
+                }
+            }
+        }
+        if (clusters.length != adjacency.size())
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length
+                    + " does not match matrix size " + adjacency.size() + ".");
+        }
+
+        KWayRefinement refinement = new KWayRefinement(adjacency, clusters, p, vertexWeights, marginPercent, 0, 1, 1);
+        return refinement.run(clusters, initialActive, job);
+    }
+
+    /**
+     * Refines a k-way partition whose parts are grouped, in place.
+     * A cut edge costs intraGroupCost times its value between two parts of the same group and
+     * interGroupCost times its value between groups, so moves that turn inter-group cuts into
+     * intra-group ones pay off even when they do not reduce the plain edge cut.
+     *
+     * @param adjacency Symmetric adjacency matrix (edge weights as values, diagonal ignored).
+     * @param clusters Cluster index (1..p) of each vertex; updated in place.
+     * @param p Number of parts.
+     * @param partsPerGroup Parts per group: part c (1-based) belongs to group (c - 1) / partsPerGroup.
+     * @param intraGroupCost Cost per unit of edge value cut inside a group (at least 1).
+     * @param interGroupCost Cost per unit of edge value cut between groups (at least intraGroupCost).
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent.
+     * @param job Cancellation flag and time budget (no new round starts once the budget is exhausted).
+     * @return Reduction of the cut cost; negative if rebalancing cost more than refinement gained.
+     * @throws IllegalArgumentException if clusters does not match the matrix size or the costs are invalid.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static int refineGrouped(CSRmatrix adjacency, int[] clusters, int p, int partsPerGroup,
+                                    int intraGroupCost, int interGroupCost, int[] vertexWeights,
+                                    double marginPercent, JobControl job)
+    {
+        if (clusters.length != adjacency.size())
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length
+                    + " does not match matrix size " + adjacency.size() + ".");
+        }
+        if (partsPerGroup < 1 || intraGroupCost < 1 || interGroupCost < intraGroupCost)
+        {
+            throw new IllegalArgumentException("Invalid grouping: " + partsPerGroup + " parts per group, costs "
+                    + intraGroupCost + " / " + interGroupCost + ".");
+        }
+        KWayRefinement refinement = new KWayRefinement(adjacency, clusters, p, vertexWeights, marginPercent,
+                partsPerGroup, intraGroupCost, interGroupCost);
+        return refinement.run(clusters, null, job);
+    }
+
+    /**
+     * Rebalances, refines and writes the parts back.
+     *
+     * @param clusters Output cluster indices (1-based).
+     * @param initialActive Vertices considered in the first round, or null for all.
+     * @param job Cancellation flag and time budget.
+     * @return Total gain.
+     */
+    private int run(int[] clusters, int[] initialActive, JobControl job)
+    {
+        int totalGain = rebalance(job);
+        totalGain += runRounds(initialActive, job);
+        for (int i = 0; i < n; i++) clusters[i] = part[i] + 1;
+        return totalGain;
+    }
+
+    /**
+     * Greedy refinement rounds (see class description), driven by a sorted list of active vertices.
+     *
+     * @param initialActive Vertices considered in the first round, or null for all.
+     * @param job Cancellation flag and time budget.
+     * @return Total gain of the applied moves.
+     */
+    private int runRounds(int[] initialActive, JobControl job)
+    {
+        boolean[] kept = new boolean[n];
+        // Marks the vertices already in the next list
+        boolean[] queued = new boolean[n];
+        int[] active;
+        if (initialActive != null)
+        {
+            active = initialActive.clone();
+            Arrays.sort(active);
+        }
+        else
+        {
+            active = IntStream.range(0, n).toArray();
+        }
+        int activeCount = active.length;
+        int[] next = new int[Math.min(n, Math.max(16, 2 * activeCount))];
+        int totalGain = 0;
+
+        for (int round = 0; round < MAX_ROUNDS && activeCount > 0; round++)
+        {
+            job.checkCancelled();
+            if (round > 0 && job.isBudgetExhausted()) break;
+            int[] list = active;
+            int count = activeCount;
+            int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+            // Phase 1: proposals (read-only on part[]; target[] is -1 outside the list)
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+            {
+                int[] connection = new int[p];
+                int[] touched = new int[p];
+                int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+                for (int k = chunk * CHUNK_SIZE; k < end; k++) propose(list[k], connection, touched, false);
+            });
+
+            // Phase 2: drop proposals beaten by a neighbour's proposal (parallel, read-only)
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+            {
+                int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+                for (int k = chunk * CHUNK_SIZE; k < end; k++)
+                {
+                    int v = list[k];
+                    if (target[v] == -1) continue;
+                    boolean wins = true;
+                    for (int idx = rowPtr[v]; idx < rowPtr[v + 1] && wins; idx++)
+                    {
+                        int u = colInd[idx];
+                        if (u == v || target[u] == -1) continue;
+                        wins = gain[u] < gain[v] || (gain[u] == gain[v] && u > v);
+                    }
+                    kept[v] = wins;
+                }
+            });
+
+            // Apply kept moves in vertex order within the weight bounds; moved vertices and their neighbours go next
+            int moved = 0;
+            int roundGain = 0;
+            int nextCount = 0;
+            for (int k = 0; k < count; k++)
+            {
+                int v = list[k];
+                if (target[v] == -1 || !kept[v]) continue;
+                long w = weight(v);
+                if (partWeight[target[v]] + w > upperBound || partWeight[part[v]] - w < lowerBound) continue;
+                roundGain += gain[v];
+                moveTo(v, target[v]);
+                moved++;
+                int needed = nextCount + 1 + rowPtr[v + 1] - rowPtr[v];
+                if (needed > next.length) next = Arrays.copyOf(next, Math.max(2 * next.length, needed));
+                if (!queued[v])
+                {
+                    queued[v] = true;
+                    next[nextCount++] = v;
+                }
+                for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+                {
+                    int u = colInd[idx];
+                    if (queued[u]) continue;
+                    queued[u] = true;
+                    next[nextCount++] = u;
+                }
+            }
+            for (int k = 0; k < count; k++) target[list[k]] = -1;
+            for (int k = 0; k < nextCount; k++) queued[next[k]] = false;
+            Arrays.sort(next, 0, nextCount);
+            active = next;
+            activeCount = nextCount;
+            next = list;
+
+            totalGain += roundGain;
+            System.out.println("[KWayRefinement] Round " + (round + 1) + ": " + moved + " moves, gain " + roundGain);
+            if (moved == 0) break;
+        }
+        return totalGain;
+    }
+
+    /**
+     * Moves boundary vertices out of parts above the upper bound and into parts below the lower bound,
+     * best gain first (gains may be negative). Stops when all parts are within bounds or nothing can move.
+     *
+     * @param job Cancellation flag.
+     * @return Total gain of the applied moves (usually negative).
+     */
+    private int rebalance(JobControl job)
+    {
+        int totalGain = 0;
+        int[] connection = new int[p];
+        int[] touched = new int[p];
+        int[] candidates = new int[n];
+        double[] priority = new double[n];
+        for (int pass = 0; pass < MAX_REBALANCE_PASSES && !balanced(); pass++)
+        {
+            job.checkCancelled();
+            int count = 0;
+            for (int v = 0; v < n; v++)
+            {
+                target[v] = -1;
+                propose(v, connection, touched, true);
+                if (target[v] != -1)
+                {
+                    candidates[count++] = v;
+                    priority[v] = -gain[v];
+                }
+            }
+            IndexSort.sortByKey(candidates, priority, 0, count);
+
+            int moved = 0;
+            for (int k = 0; k < count; k++)
+            {
+                int v = candidates[k];
+                if (!rebalancingMove(v, part[v], target[v])) continue;
+                totalGain += gain[v];
+                moveTo(v, target[v]);
+                moved++;
+            }
+            for (int k = 0; k < count; k++) target[candidates[k]] = -1;
+            System.out.println("[KWayRefinement] Rebalance pass " + (pass + 1) + ": " + moved + " moves");
+            if (moved == 0) break;
+        }
+        return totalGain;
+    }
+
+    /**
+     * Finds the best neighbouring part for v and stores it in target[v] and gain[v].
+     * In refinement mode only cut-reducing moves are proposed; in rebalancing mode any move
+     * that takes weight out of an overweight part or into an underweight part is.
+     *
+     * @param v Vertex.
+     * @param connection Scratch array of size p (all zero on entry and exit).
+     * @param touched Scratch array of size p.
+     * @param rebalancing True for rebalancing mode.
+     */
+    private void propose(int v, int[] connection, int[] touched, boolean rebalancing)
+    {
+        int own = part[v];
+        int touchedCount = 0;
+        for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+        {
+            int u = colInd[idx];
+            if (u == v) continue;
+            int c = part[u];
+            if (connection[c] == 0) touched[touchedCount++] = c;
+            connection[c] += values[idx];
+        }
+        int best = -1;
+        int bestGain = 0;
+        int ownCost = partsPerGroup > 0 ? cutCost(own, connection, touched, touchedCount) : 0;
+        for (int k = 0; k < touchedCount; k++)
+        {
+            int c = touched[k];
+            if (c == own || (rebalancing && !rebalancingMove(v, own, c))) continue;
+            int moveGain = partsPerGroup > 0
+                    ? ownCost - cutCost(c, connection, touched, touchedCount)
+                    : connection[c] - connection[own];
+            if (best == -1 || moveGain > bestGain || (moveGain == bestGain && c < best))
+            {
+                best = c;
+                bestGain = moveGain;
+            }
+        }
+        if (best != -1 && (rebalancing || bestGain > 0))
+        {
+            target[v] = best;
+            gain[v] = bestGain;
+        }
+        for (int k = 0; k < touchedCount; k++) connection[touched[k]] = 0;
+    }
+
+    /**
+     * Cost of the edges of a vertex if it were in part c, with grouped parts.
+     *
+     * @param c Candidate part.
+     * @param connection Edge value from the vertex to each part.
+     * @param touched Parts with a non-zero connection.
+     * @param touchedCount Number of touched parts.
+     * @return Sum of connection[d] times the cut cost between c and d.
+     */
+    private int cutCost(int c, int[] connection, int[] touched, int touchedCount)
+    {
+        int cost = 0;
+        for (int k = 0; k < touchedCount; k++)
+        {
+            int d = touched[k];
+            if (d == c) continue;
+            cost += connection[d] * (d / partsPerGroup == c / partsPerGroup ? intraGroupCost : interGroupCost);
+        }
+        return cost;
+    }
+
+    /**
+     * Checks whether moving v takes weight out of an overweight part or into an underweight part
+     * without pushing the target over the upper bound or the source under the lower bound.
+     *
+     * @param v Vertex.
+     * @param from Current part.
+     * @param to Target part.
+     * @return True if the move helps rebalancing.
+     */
+    private boolean rebalancingMove(int v, int from, int to)
+    {
+        long w = weight(v);
+        boolean helps = partWeight[from] > upperBound || partWeight[to] < lowerBound;
+        return helps && partWeight[to] + w <= upperBound && partWeight[from] - w >= lowerBound;
+    }
+
+    /**
+     * Checks whether every part is within the weight bounds.
+     *
+     * @return True if balanced.
+     */
+    private boolean balanced()
+    {
+        for (long w : partWeight)
+        {
+            if (w < lowerBound || w > upperBound) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves v to another part and updates the part weights.
+     *
+     * @param v Vertex.
+     * @param to Target part.
+     */
+    private void moveTo(int v, int to)
+    {
+        partWeight[part[v]] -= weight(v);
+        partWeight[to] += weight(v);
+        part[v] = to;
+    }
+
+    /**
+     * Weight of vertex i.
+     *
+     * @param i Vertex index.
+     * @return Vertex weight (1 without weights).
+     */
+    private long weight(int i)
+    {
+        return vertexWeights != null ? vertexWeights[i] : 1;
+    }
+}
@@ -0,0 +1,289 @@
+package graphdivider.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Size-constrained label propagation partitioner for graphs too large for an eigen solve.
+ * Reads only the adjacency matrix:
+ * <ol>
+ *     <li>initial assignment: vertices in breadth-first order are cut into p consecutive blocks
+ *         of equal weight, which gives compact, exactly balanced parts in O(E),</li>
+ *     <li>sweeps: every vertex adopts the label most of its (weighted) neighbours carry, if that label is
+ *         strictly more common than its own and both parts stay within the margin bounds.</li>
+ * </ol>
+ * Sweeps run in parallel over vertex chunks and update labels in place, so a vertex sees the moves
+ * already made in the same sweep. Part weights are reserved with compare-and-set, so the bounds hold
+ * at all times; with several cores the result can differ slightly between runs.
+ * Sweeping stops once a sweep improves the cut by less than 0.1%.
+ */
+public final class LabelPropagationPartitioner implements Partitioner
+{
+    // Vertices per parallel work unit
+    private static final int CHUNK_SIZE = 4096;
+    // Upper limit on the number of sweeps
+    private static final int MAX_SWEEPS = 50;
+    // A sweep improving the cut by less than this fraction ends the iteration
+    private static final double MIN_RELATIVE_IMPROVEMENT = 0.001;
+
+    /**
+     * Creates the engine (used by {@link java.util.ServiceLoader}).
+     */
+    public LabelPropagationPartitioner() {}
+
+    @Override
+    public String getId()
+    {
+        return "label-propagation";
+    }
+
+    @Override
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? "Propagacja etykiet" : "Label propagation";
+    }
+
+    @Override
+    public PartitionResult partition(PartitionRequest request, JobControl job)
+    {
+        long start = System.nanoTime();
+        int[] clusters = partition(request.adjacency(), request.parts(), request.vertexWeights(), request.marginPercent(), job);
+        return PartitionResult.of(getId(), request, clusters, -1, start);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getDisplayName(false);
+    }
+
+    /**
+     * Partitions a graph into p parts.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values).
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param marginPercent Allowed margin in percent (see {@link GraphClusterization#calculateMargin}).
+     * @param job Cancellation flag and time budget (no new sweep starts once the budget is exhausted).
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws IllegalArgumentException if p is not between 2 and the number of vertices.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static int[] partition(CSRmatrix adjacency, int p, int[] vertexWeights, double marginPercent, JobControl job)
+    {
+        int n = adjacency.size();
+        if (p < 2 || p > n)
+        {
+            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure 2 <= p <= n.");
+        }
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+
+        int[] label = breadthFirstBlocks(adjacency, p, vertexWeights);
+        AtomicLongArray partWeight = new AtomicLongArray(p);
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++)
+        {
+            partWeight.addAndGet(label[i], weight(vertexWeights, i));
+            totalWeight += weight(vertexWeights, i);
+        }
+
+        // Weight bounds from the margin, as in KWayRefinement
+        double average = (double) totalWeight / p;
+        double e = marginPercent / (200.0 + marginPercent);
+        long lowerBound = (long) Math.ceil(average * (1.0 - e));
+        long upperBound = Math.max(lowerBound, (long) Math.floor(average * (1.0 + e)));
+
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long[] partialCut = new long[chunks];
+        int[] partialMoves = new int[chunks];
+        long cut = weightedCut(rowPtr, colInd, values, label, chunks, partialCut);
+        System.out.println("[LabelPropagationPartitioner] Initial breadth-first blocks: edges cut " + cut);
+
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++)
+        {
+            job.checkCancelled();
+            if (sweep > 0 && job.isBudgetExhausted()) break;
+
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+            {
+                int[] connection = new int[p];
+                int[] touched = new int[p];
+                int moves = 0;
+                int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+                for (int v = chunk * CHUNK_SIZE; v < end; v++)
+                {
+                    int own = label[v];
+                    int touchedCount = 0;
+                    for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+                    {
+                        int u = colInd[idx];
+                        if (u == v) continue;
+                        int c = label[u];
+                        if (connection[c] == 0) touched[touchedCount++] = c;
+                        connection[c] += values[idx];
+                    }
+
+                    // Most common neighbour label with room, strictly better than the own label
+                    long w = weight(vertexWeights, v);
+                    int best = own;
+                    for (int k = 0; k < touchedCount; k++)
+                    {
+                        int c = touched[k];
+                        if (c == own || connection[c] <= connection[best]) continue;
+                        if (partWeight.get(c) + w <= upperBound) best = c;
+                    }
+                    for (int k = 0; k < touchedCount; k++) connection[touched[k]] = 0;
+
+                    if (best != own && reserve(partWeight, best, own, w, lowerBound, upperBound))
+                    {
+                        label[v] = best;
+                        moves++;
+                    }
+                }
+                partialMoves[chunk] = moves;
+            });
+
+            int moves = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) moves += partialMoves[chunk];
+            long newCut = weightedCut(rowPtr, colInd, values, label, chunks, partialCut);
+            System.out.println("[LabelPropagationPartitioner] Sweep " + (sweep + 1) + ": " + moves
+                    + " moves, edges cut " + newCut);
+            boolean stable = moves == 0 || cut - newCut < MIN_RELATIVE_IMPROVEMENT * cut;
+            cut = newCut;
+            if (stable) break;
+        }
+
+        int[] clusters = new int[n];
+        for (int i = 0; i < n; i++) clusters[i] = label[i] + 1;
+        return clusters;
+    }
+
+    /**
+     * Cuts the breadth-first order of the vertices (restarting in every connected component)
+     * into p consecutive blocks of equal weight.
+     *
+     * @param adjacency Symmetric adjacency matrix.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @return Label (0-based part) of each vertex.
+     */
+    static int[] breadthFirstBlocks(CSRmatrix adjacency, int p, int[] vertexWeights)
+    {
+        int n = adjacency.size();
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++) totalWeight += weight(vertexWeights, i);
+
+        int[] label = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        long before = 0;
+        for (int start = 0; start < n; start++)
+        {
+            if (visited[start]) continue;
+            visited[start] = true;
+            queue[tail++] = start;
+            while (head < tail)
+            {
+                int v = queue[head++];
+                // Block of the weight midpoint of v in breadth-first order
+                long w = weight(vertexWeights, v);
+                label[v] = (int) Math.min(p - 1, (2 * before + w) * p / (2 * totalWeight));
+                before += w;
+                for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+                {
+                    int u = colInd[idx];
+                    if (!visited[u])
+                    {
+                        visited[u] = true;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Atomically moves weight w from one part to another if the target stays at or below the upper
+     * bound and the source at or above the lower bound.
+     *
+     * @param partWeight Weight of each part.
+     * @param to Target part.
+     * @param from Source part.
+     * @param w Weight to move.
+     * @param lowerBound Smallest allowed part weight.
+     * @param upperBound Largest allowed part weight.
+     * @return True if the weight was moved.
+     */
+    private static boolean reserve(AtomicLongArray partWeight, int to, int from, long w, long lowerBound, long upperBound)
+    {
+        while (true)
+        {
+            long current = partWeight.get(to);
+            if (current + w > upperBound) return false;
+            if (partWeight.compareAndSet(to, current, current + w)) break;
+        }
+        while (true)
+        {
+            long current = partWeight.get(from);
+            if (current - w < lowerBound)
+            {
+                partWeight.addAndGet(to, -w); // Give the reservation back
+                return false;
+            }
+            if (partWeight.compareAndSet(from, current, current - w)) return true;
+        }
+    }
+
+    /**
+     * Total weight of edges between different labels (parallel over chunks).
+     *
+     * @param rowPtr Row pointers.
+     * @param colInd Column indices.
+     * @param values Edge weights.
+     * @param label Label of each vertex.
+     * @param chunks Number of chunks.
+     * @param partialCut Scratch array with one slot per chunk.
+     * @return Weighted edge cut.
+     */
+    private static long weightedCut(int[] rowPtr, int[] colInd, int[] values, int[] label, int chunks, long[] partialCut)
+    {
+        int n = label.length;
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            long sum = 0;
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int v = chunk * CHUNK_SIZE; v < end; v++)
+            {
+                for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+                {
+                    int u = colInd[idx];
+                    if (u > v && label[u] != label[v]) sum += values[idx];
+                }
+            }
+            partialCut[chunk] = sum;
+        });
+        long total = 0;
+        for (long sum : partialCut) total += sum;
+        return total;
+    }
+
+    /**
+     * Weight of vertex i.
+     *
+     * @param vertexWeights Vertex weights, or null for unit weights.
+     * @param i Vertex index.
+     * @return Vertex weight.
+     */
+    private static long weight(int[] vertexWeights, int i)
+    {
+        return vertexWeights != null ? vertexWeights[i] : 1;
+    }
+}
@@ -0,0 +1,145 @@
+package graphdivider.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multilevel k-way partitioner (METIS-style):
+ * <ol>
+ *     <li>coarsen the graph by heavy-edge matching ({@link GraphCoarsening}) until it is small,</li>
+ *     <li>partition the coarsest graph with the spectral path (eigenvectors and balanced k-means),</li>
+ *     <li>project the partition back level by level, refining the boundary on every level
+ *         with the coarse vertex weights (FM for two parts, greedy k-way otherwise).</li>
+ * </ol>
+ * The eigen solve only ever runs on a graph of a few hundred vertices per part,
+ * so large graphs avoid the full-size ARPACK solve.
+ */
+public final class MultilevelPartitioner implements Partitioner
+{
+    // Stop coarsening at this many vertices per part (but not below the minimum)
+    private static final int COARSE_VERTICES_PER_PART = 30;
+    private static final int MIN_COARSE_VERTICES = 300;
+    // Stop coarsening when a level shrinks the graph by less than this factor
+    private static final double MIN_REDUCTION = 0.9;
+
+    /**
+     * Creates the engine (used by {@link java.util.ServiceLoader}).
+     */
+    public MultilevelPartitioner() {}
+
+    @Override
+    public String getId()
+    {
+        return "multilevel";
+    }
+
+    @Override
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? "Wielopoziomowy" : "Multilevel";
+    }
+
+    @Override
+    public PartitionResult partition(PartitionRequest request, JobControl job) throws Exception
+    {
+        long start = System.nanoTime();
+        // Refines on every level itself
+        int[] clusters = partition(request.adjacency(), request.parts(), request.marginPercent(), request.clustering(),
+                request.vertexWeights(), job);
+        return PartitionResult.of(getId(), request, clusters, -1, start);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getDisplayName(false);
+    }
+
+    /**
+     * Partitions a graph into p parts.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values).
+     * @param p Number of parts.
+     * @param marginPercent Allowed margin in percent (see {@link GraphClusterization#calculateMargin}).
+     * @param options K-means options for the coarsest partition.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws IllegalArgumentException if p is not between 2 and the number of vertices.
+     * @throws IllegalStateException if the coarsest graph could not be partitioned.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws Exception if the eigen solve on the coarsest graph fails.
+     */
+    public static int[] partition(CSRmatrix adjacency, int p, double marginPercent,
+                                  ClusteringOptions options, JobControl job) throws Exception
+    {
+        return partition(adjacency, p, marginPercent, options, null, job);
+    }
+
+    /**
+     * Partitions a graph with weighted vertices into p parts of (nearly) equal total weight.
+     * Contracted vertices carry the summed weights, so every level balances the same quantity.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values).
+     * @param p Number of parts.
+     * @param marginPercent Allowed margin in percent, measured on vertex weights.
+     * @param options K-means options for the coarsest partition.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param job Cancellation flag and time budget.
+     * @return Array of cluster indices (1-based) for each vertex.
+     * @throws IllegalArgumentException if p is not between 2 and the number of vertices.
+     * @throws IllegalStateException if the coarsest graph could not be partitioned.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws Exception if the eigen solve on the coarsest graph fails.
+     */
+    public static int[] partition(CSRmatrix adjacency, int p, double marginPercent,
+                                  ClusteringOptions options, int[] vertexWeights, JobControl job) throws Exception
+    {
+        int n = adjacency.size();
+        if (p < 2 || p > n)
+        {
+            throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure 2 <= p <= n.");
+        }
+
+        // Phase 1: coarsening
+        int target = Math.max(MIN_COARSE_VERTICES, COARSE_VERTICES_PER_PART * p);
+        List<GraphCoarsening.Level> levels = new ArrayList<>();
+        CSRmatrix coarse = adjacency;
+        int[] weights = vertexWeights;
+        while (coarse.size() > target)
+        {
+            job.checkCancelled();
+            GraphCoarsening.Level level = GraphCoarsening.coarsen(coarse, weights);
+            if (level.size() > MIN_REDUCTION * coarse.size()) break;
+            levels.add(level);
+            coarse = level.adjacency();
+            weights = level.vertexWeights();
+        }
+        System.out.println("[MultilevelPartitioner] Coarsened " + n + " -> " + coarse.size()
+                + " vertices in " + levels.size() + " levels.");
+
+        // Phase 2: spectral partition of the coarsest graph
+        SymmetricCSRmatrix coarseLaplacian = SymmetricCSRmatrix.laplacianOf(coarse);
+        GraphEigenvalues.EigenResult eigen = GraphEigenvalues.computeSmallestEigenpairs(coarseLaplacian, p, job);
+        int[] clusters = GraphClusterization.clusterizeGraph(eigen, p, coarse, options, weights, job);
+        if (clusters == null)
+        {
+            throw new IllegalStateException("Clustering of the coarsest graph failed.");
+        }
+        GraphClusterization.refinePartition(coarse, clusters, p, weights, marginPercent, job);
+
+        // Phase 3: uncoarsening with refinement on every level
+        for (int l = levels.size() - 1; l >= 0; l--)
+        {
+            job.checkCancelled();
+            int[] fineToCoarse = levels.get(l).fineToCoarse();
+            int[] fineClusters = new int[fineToCoarse.length];
+            for (int i = 0; i < fineToCoarse.length; i++) fineClusters[i] = clusters[fineToCoarse[i]];
+            clusters = fineClusters;
+
+            CSRmatrix fine = l > 0 ? levels.get(l - 1).adjacency() : adjacency;
+            int[] fineWeights = l > 0 ? levels.get(l - 1).vertexWeights() : vertexWeights;
+            GraphClusterization.refinePartition(fine, clusters, p, fineWeights, marginPercent, job);
+        }
+        return clusters;
+    }
+}
@@ -0,0 +1,194 @@
+package graphdivider.model;
+
+import java.util.stream.IntStream;
+
+/**
+ * Quality metrics of a partition, computed from the adjacency matrix and the cluster array alone
+ * (no Swing components are needed, so headless and large runs can be evaluated).
+ * Edges are counted once per vertex pair, without weights, as in {@link GraphClusterization#calculateEdgesCut};
+ * the cut weight and the conductance use the edge weights instead. Balance (imbalance, margin) is measured on
+ * vertex weights.
+ *
+ * @param edgesCut Number of edges between different parts.
+ * @param partSizes Number of vertices in each part.
+ * @param imbalance Largest part weight divided by the average part weight, minus 1 (0 = perfectly balanced).
+ * @param marginKept Margin (max - min) / min * 100 of the part weights (see {@link GraphClusterization#calculateMargin}).
+ * @param communicationVolume Sum over all vertices of the number of other parts among their neighbours.
+ * @param boundaryVertices Number of vertices in each part with a neighbour in another part.
+ * @param conductance Cut weight of each part divided by the smaller of its volume (sum of weighted degrees)
+ *                    and the rest of the graph's volume.
+ * @param cutWeight Sum of the weights of the edges between different parts.
+ * @param partWeights Sum of the vertex weights in each part (equal to partSizes without weights).
+ */
+public record PartitionMetrics(int edgesCut, int[] partSizes, double imbalance, double marginKept,
+                               long communicationVolume, int[] boundaryVertices, double[] conductance,
+                               long cutWeight, long[] partWeights)
+{
+    // Vertices per parallel work unit
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Computes all metrics in one parallel pass over the adjacency matrix, with unit vertex weights.
+     *
+     * @param adjacency Symmetric vertex-indexed matrix (adjacency or Laplacian; the diagonal is ignored).
+     * @param clusters Cluster index (1..p) of each vertex.
+     * @param p Number of parts.
+     * @return PartitionMetrics of the partition.
+     * @throws IllegalArgumentException if clusters does not match the matrix size or holds an index outside 1..p.
+     */
+    public static PartitionMetrics compute(CSRmatrix adjacency, int[] clusters, int p)
+    {
+        return compute(adjacency, clusters, p, null);
+    }
+
+    /**
+     * Computes all metrics in one parallel pass over the adjacency matrix.
+     *
+     * @param adjacency Symmetric vertex-indexed matrix (adjacency or Laplacian; the diagonal is ignored,
+     *                  edge weights are taken as absolute values).
+     * @param clusters Cluster index (1..p) of each vertex.
+     * @param p Number of parts.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @return PartitionMetrics of the partition.
+     * @throws IllegalArgumentException if clusters or the weights do not match the matrix size,
+     *                                  or clusters holds an index outside 1..p.
+     */
+    public static PartitionMetrics compute(CSRmatrix adjacency, int[] clusters, int p, int[] vertexWeights)
+    {
+        int n = adjacency.size();
+        if (clusters.length != n)
+        {
+            throw new IllegalArgumentException("Clusters length " + clusters.length
+                    + " does not match matrix size " + n + ".");
+        }
+        if (vertexWeights != null && vertexWeights.length != n)
+        {
+            throw new IllegalArgumentException("Vertex weights length " + vertexWeights.length
+                    + " does not match matrix size " + n + ".");
+        }
+        int[] rowPtr = adjacency.getRowPtr();
+        int[] colInd = adjacency.getColInd();
+        int[] values = adjacency.getValues();
+
+        // Per chunk: part sizes, boundary vertices, cut weight and volume per part, edge cut, communication volume,
+        // then part weights and cut weight
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long[][] partial = new long[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            long[] sums = new long[5 * p + 3];
+            int[] seen = new int[p]; // Last vertex (+1) that saw each part among its neighbours
+            int end = Math.min(n, (chunk + 1) * CHUNK_SIZE);
+            for (int v = chunk * CHUNK_SIZE; v < end; v++)
+            {
+                int own = clusters[v] - 1;
+                if (own < 0 || own >= p)
+                {
+                    throw new IllegalArgumentException("Cluster index " + clusters[v] + " of vertex " + v + " is outside 1.." + p + ".");
+                }
+                long external = 0;
+                long degree = 0;
+                int otherParts = 0;
+                for (int idx = rowPtr[v]; idx < rowPtr[v + 1]; idx++)
+                {
+                    int u = colInd[idx];
+                    if (u == v) continue;
+                    int weight = Math.abs(values[idx]);
+                    degree += weight;
+                    int c = clusters[u] - 1;
+                    if (c == own) continue;
+                    external += weight;
+                    if (u > v)
+                    {
+                        sums[4 * p]++;
+                        sums[5 * p + 2] += weight;
+                    }
+                    if (seen[c] != v + 1)
+                    {
+                        seen[c] = v + 1;
+                        otherParts++;
+                    }
+                }
+                sums[own]++;
+                if (external > 0) sums[p + own]++;
+                sums[2 * p + own] += external;
+                sums[3 * p + own] += degree;
+                sums[4 * p + 1] += otherParts;
+                sums[4 * p + 2 + own] += vertexWeights != null ? vertexWeights[v] : 1;
+            }
+            partial[chunk] = sums;
+        });
+
+        long[] total = new long[5 * p + 3];
+        for (long[] sums : partial)
+        {
+            for (int k = 0; k < total.length; k++) total[k] += sums[k];
+        }
+
+        int[] partSizes = new int[p];
+        long[] partWeights = new long[p];
+        int[] boundaryVertices = new int[p];
+        double[] conductance = new double[p];
+        long totalVolume = 0;
+        long totalWeight = 0;
+        for (int c = 0; c < p; c++) totalVolume += total[3 * p + c];
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int c = 0; c < p; c++)
+        {
+            partSizes[c] = (int) total[c];
+            partWeights[c] = total[4 * p + 2 + c];
+            totalWeight += partWeights[c];
+            boundaryVertices[c] = (int) total[p + c];
+            long volume = Math.min(total[3 * p + c], totalVolume - total[3 * p + c]);
+            conductance[c] = volume > 0 ? (double) total[2 * p + c] / volume : 0.0;
+            min = Math.min(min, partWeights[c]);
+            max = Math.max(max, partWeights[c]);
+        }
+        double imbalance = totalWeight > 0 ? (double) max * p / totalWeight - 1.0 : 0.0;
+        double marginKept = min > 0 ? ((double) (max - min) / min) * 100.0 : 0.0;
+        return new PartitionMetrics((int) total[4 * p], partSizes, imbalance, marginKept,
+                total[4 * p + 1], boundaryVertices, conductance, total[5 * p + 2], partWeights);
+    }
+
+    /**
+     * Gets the total number of boundary vertices.
+     *
+     * @return Vertices with a neighbour in another part.
+     */
+    public int totalBoundaryVertices()
+    {
+        int total = 0;
+        for (int count : boundaryVertices) total += count;
+        return total;
+    }
+
+    /**
+     * Gets the conductance of the worst part.
+     *
+     * @return Largest per-part conductance.
+     */
+    public double maxConductance()
+    {
+        double max = 0.0;
+        for (double value : conductance) max = Math.max(max, value);
+        return max;
+    }
+
+    /**
+     * Prints the metrics to the console.
+     */
+    public void print()
+    {
+        System.out.println("[PartitionMetrics] Edges cut: " + edgesCut + ", cut weight: " + cutWeight
+                + ", communication volume: " + communicationVolume
+                + ", boundary vertices: " + totalBoundaryVertices());
+        System.out.println("[PartitionMetrics] " + String.format("Imbalance: %.4f, margin: %.2f%%, max conductance: %.4f",
+                imbalance, marginKept, maxConductance()));
+        for (int c = 0; c < partSizes.length; c++)
+        {
+            System.out.println("[PartitionMetrics] Part " + (c + 1) + ": " + partSizes[c] + " vertices, weight " + partWeights[c] + ", "
+                    + boundaryVertices[c] + " on the boundary, " + String.format("conductance %.4f", conductance[c]));
+        }
+    }
+}
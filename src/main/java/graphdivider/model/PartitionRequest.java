@@ -0,0 +1,87 @@
+package graphdivider.model;
+
+/**
+ * Input of a {@link Partitioner}: the graph and the partition settings.
+ * Engines use only what they need; the spectral settings are ignored by the other engines.
+ *
+ * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values).
+ * @param laplacian Laplacian of the graph in half storage, or null to derive it from the adjacency matrix when needed.
+ * @param model Graph model with layout data (used by coordinate start vectors), may be null.
+ * @param parts Number of parts.
+ * @param marginPercent Allowed margin in percent (see {@link GraphClusterization#calculateMargin}).
+ * @param clustering K-means options for spectral clustering.
+ * @param startVector Start vector strategy for the eigen solver.
+ * @param vertexWeights Weight (compute cost) of each vertex that parts are balanced by, or null to balance vertex counts.
+ */
+public record PartitionRequest(CSRmatrix adjacency, SymmetricCSRmatrix laplacian, GraphModel model, int parts,
+                               double marginPercent, ClusteringOptions clustering, StartVector startVector,
+                               int[] vertexWeights)
+{
+    /**
+     * Validates the request.
+     *
+     * @throws IllegalArgumentException if the adjacency matrix, options or start vector are missing,
+     *                                  p is not between 2 and the number of vertices, the margin is negative,
+     *                                  or the vertex weights do not match the graph.
+     */
+    public PartitionRequest
+    {
+        if (adjacency == null || clustering == null || startVector == null)
+        {
+            throw new IllegalArgumentException("Adjacency matrix, clustering options and start vector must not be null.");
+        }
+        if (parts < 2 || parts > adjacency.size())
+        {
+            throw new IllegalArgumentException("Invalid input: n = " + adjacency.size() + ", p = " + parts + ". Ensure 2 <= p <= n.");
+        }
+        if (marginPercent < 0)
+        {
+            throw new IllegalArgumentException("Margin must not be negative: " + marginPercent);
+        }
+        if (vertexWeights != null && vertexWeights.length != adjacency.size())
+        {
+            throw new IllegalArgumentException("Vertex weights length " + vertexWeights.length
+                    + " does not match n = " + adjacency.size() + ".");
+        }
+    }
+
+    /**
+     * Creates a request that balances vertex counts.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix (edge weights as values).
+     * @param laplacian Laplacian of the graph, or null to derive it.
+     * @param model Graph model with layout data, may be null.
+     * @param parts Number of parts.
+     * @param marginPercent Allowed margin in percent.
+     * @param clustering K-means options for spectral clustering.
+     * @param startVector Start vector strategy for the eigen solver.
+     */
+    public PartitionRequest(CSRmatrix adjacency, SymmetricCSRmatrix laplacian, GraphModel model, int parts,
+                            double marginPercent, ClusteringOptions clustering, StartVector startVector)
+    {
+        this(adjacency, laplacian, model, parts, marginPercent, clustering, startVector, null);
+    }
+
+    /**
+     * Creates a request with default spectral settings, for programmatic use.
+     *
+     * @param adjacency Symmetric vertex-indexed adjacency matrix.
+     * @param parts Number of parts.
+     * @param marginPercent Allowed margin in percent.
+     * @return PartitionRequest with default k-means options and a random start vector.
+     */
+    public static PartitionRequest of(CSRmatrix adjacency, int parts, double marginPercent)
+    {
+        return new PartitionRequest(adjacency, null, null, parts, marginPercent, ClusteringOptions.defaults(), StartVector.RANDOM);
+    }
+
+    /**
+     * Gets the Laplacian, deriving it from the adjacency matrix if none was given.
+     *
+     * @return Laplacian matrix in half storage.
+     */
+    public SymmetricCSRmatrix laplacianOrDerived()
+    {
+        return laplacian != null ? laplacian : SymmetricCSRmatrix.laplacianOf(adjacency);
+    }
+}
@@ -0,0 +1,71 @@
+package graphdivider.model;
+
+import java.util.List;
+
+/**
+ * Output of a {@link Partitioner}: the assignment and its statistics.
+ *
+ * @param engineId Identifier of the engine that produced the partition.
+ * @param clusters Cluster index (1..p) of each vertex.
+ * @param metrics Quality metrics of the partition.
+ * @param unrefinedEdgesCut Edge cut before refinement, or -1 if the engine reports none.
+ * @param elapsedMillis Wall-clock time of the engine in milliseconds.
+ * @param suggestions Natural part counts found from the eigengaps (null if the engine computes none).
+ */
+public record PartitionResult(String engineId, int[] clusters, PartitionMetrics metrics,
+                              int unrefinedEdgesCut, long elapsedMillis, List<EigengapAnalyzer.Suggestion> suggestions)
+{
+    /**
+     * Computes the statistics of an assignment.
+     *
+     * @param engineId Identifier of the engine.
+     * @param request The request that was partitioned.
+     * @param clusters Cluster index (1..p) of each vertex.
+     * @param unrefinedEdgesCut Edge cut before refinement, or -1.
+     * @param startNanos System.nanoTime() when the engine started.
+     * @return PartitionResult with metrics and elapsed time.
+     * @throws IllegalStateException if clusters is null or does not match the graph size.
+     */
+    public static PartitionResult of(String engineId, PartitionRequest request, int[] clusters,
+                                     int unrefinedEdgesCut, long startNanos)
+    {
+        if (clusters == null || clusters.length != request.adjacency().size())
+        {
+            throw new IllegalStateException("Engine " + engineId + " did not return an assignment for every vertex.");
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+        PartitionMetrics metrics = PartitionMetrics.compute(request.adjacency(), clusters, request.parts(), request.vertexWeights());
+        return new PartitionResult(engineId, clusters, metrics, unrefinedEdgesCut, elapsedMillis, null);
+    }
+
+    /**
+     * Gets a copy of this result carrying part count suggestions.
+     *
+     * @param suggestions Suggestions from {@link EigengapAnalyzer}.
+     * @return PartitionResult with the suggestions.
+     */
+    public PartitionResult withSuggestions(List<EigengapAnalyzer.Suggestion> suggestions)
+    {
+        return new PartitionResult(engineId, clusters, metrics, unrefinedEdgesCut, elapsedMillis, List.copyOf(suggestions));
+    }
+
+    /**
+     * Gets the number of edges between different parts.
+     *
+     * @return Edge cut.
+     */
+    public int edgesCut()
+    {
+        return metrics.edgesCut();
+    }
+
+    /**
+     * Gets the margin of the partition.
+     *
+     * @return Margin in percent.
+     */
+    public double marginKept()
+    {
+        return metrics.marginKept();
+    }
+}
@@ -0,0 +1,73 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Spectral partitions for a range of part counts from a single eigen solve.
+ * The embedding is computed once for the largest p; every p in the range then clusters on the
+ * leading p eigenvectors and refines within the margin, with all part counts running in parallel.
+ * Each result's elapsed time covers its clustering and refinement only (the shared solve is logged);
+ * every result carries the same eigengap suggestions ({@link EigengapAnalyzer}).
+ */
+public final class PartitionSweep
+{
+    // Prevent instantiation of utility class
+    private PartitionSweep() {}
+
+    /**
+     * Partitions the graph for every p from minParts to request.parts().
+     *
+     * @param request Graph and settings; request.parts() is the largest part count.
+     * @param minParts Smallest part count (at least 2).
+     * @param job Cancellation flag and time budget (shared by the whole sweep).
+     * @return One result per part count, ordered by p.
+     * @throws IllegalArgumentException if minParts is below 2 or above request.parts().
+     * @throws IllegalStateException if clustering failed for some p.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws Exception if the eigen solve fails.
+     */
+    public static List<PartitionResult> sweep(PartitionRequest request, int minParts, JobControl job) throws Exception
+    {
+        int maxParts = request.parts();
+        if (minParts < 2 || minParts > maxParts)
+        {
+            throw new IllegalArgumentException("Invalid sweep range: " + minParts + ".." + maxParts + ".");
+        }
+
+        long start = System.nanoTime();
+        SymmetricCSRmatrix laplacian = request.laplacianOrDerived();
+        double[] startVector = request.startVector().build(request.adjacency(), request.model(), maxParts, job);
+        int pairs = GraphEigenvalues.pairsWithLookahead(maxParts, laplacian.size());
+        GraphEigenvalues.EigenResult eigen = GraphEigenvalues.computeSmallestEigenpairs(laplacian, pairs, job, startVector);
+        List<EigengapAnalyzer.Suggestion> suggestions = EigengapAnalyzer.suggest(eigen.eigenvalues, SpectralPartitioner.SUGGESTIONS);
+        EigengapAnalyzer.print(suggestions);
+        System.out.println("[PartitionSweep] Shared eigen solve for p = " + maxParts + " took "
+                + (System.nanoTime() - start) / 1_000_000L + " ms");
+
+        PartitionResult[] results = new PartitionResult[maxParts - minParts + 1];
+        IntStream.rangeClosed(minParts, maxParts).parallel().forEach(p ->
+        {
+            long partStart = System.nanoTime();
+            PartitionRequest partRequest = new PartitionRequest(request.adjacency(), laplacian, request.model(), p,
+                    request.marginPercent(), request.clustering(), request.startVector(), request.vertexWeights());
+            int[] clusters = GraphClusterization.clusterizeGraph(eigen.leading(p), p, request.adjacency(), request.clustering(),
+                    request.vertexWeights(), job);
+            if (clusters == null)
+            {
+                throw new IllegalStateException("Spectral clustering failed for p = " + p + ".");
+            }
+            int unrefinedEdgesCut = GraphClusterization.calculateEdgesCut(request.adjacency(), clusters);
+            GraphClusterization.refinePartition(request.adjacency(), clusters, p, request.vertexWeights(),
+                    request.marginPercent(), job);
+            results[p - minParts] = PartitionResult.of("spectral", partRequest, clusters, unrefinedEdgesCut, partStart)
+                    .withSuggestions(suggestions);
+            System.out.println("[PartitionSweep] p = " + p + ": edges cut " + results[p - minParts].edgesCut()
+                    + " in " + results[p - minParts].elapsedMillis() + " ms");
+        });
+        System.out.println("[PartitionSweep] Sweep " + minParts + ".." + maxParts + " took "
+                + (System.nanoTime() - start) / 1_000_000L + " ms");
+        return Arrays.asList(results);
+    }
+}
@@ -0,0 +1,47 @@
+package graphdivider.model;
+
+/**
+ * Graph partitioning engine.
+ * Engines are discovered with {@link java.util.ServiceLoader}: an implementation needs a public
+ * no-argument constructor and a line with its class name in
+ * {@code META-INF/services/graphdivider.model.Partitioner}. See {@link Partitioners} for the lookup.
+ */
+public interface Partitioner
+{
+    /**
+     * Gets the stable identifier of the engine (used to select it programmatically).
+     *
+     * @return Engine identifier, e.g. "spectral".
+     */
+    String getId();
+
+    /**
+     * Gets the display name in the requested language.
+     *
+     * @param polish True for Polish, false for English.
+     * @return Display name.
+     */
+    String getDisplayName(boolean polish);
+
+    /**
+     * Partitions a graph.
+     *
+     * @param request Graph and partition settings.
+     * @param job Cancellation flag and time budget.
+     * @return Assignment and partition statistics.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws Exception if the engine fails.
+     */
+    PartitionResult partition(PartitionRequest request, JobControl job) throws Exception;
+
+    /**
+     * Checks whether the engine needs the graph layout ({@link PartitionRequest#model()}).
+     * Such engines cannot partition derived graphs, e.g. the subgraphs of {@link HierarchicalPartitioner}.
+     *
+     * @return True if the request must carry a GraphModel.
+     */
+    default boolean needsLayout()
+    {
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package graphdivider.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Lookup of the partitioning engines registered through {@link ServiceLoader}.
+ * Engines are listed in the order of the service file, which is also the order in the UI.
+ */
+public final class Partitioners
+{
+    // Engines found on the class path (loaded once)
+    private static List<Partitioner> available;
+
+    // Prevent instantiation of utility class
+    private Partitioners() {}
+
+    /**
+     * Gets all registered engines.
+     *
+     * @return Unmodifiable list of engines.
+     * @throws IllegalStateException if no engine is registered.
+     */
+    public static synchronized List<Partitioner> available()
+    {
+        if (available == null)
+        {
+            List<Partitioner> engines = new ArrayList<>();
+            for (Partitioner engine : ServiceLoader.load(Partitioner.class))
+            {
+                engines.add(engine);
+            }
+            if (engines.isEmpty())
+            {
+                throw new IllegalStateException("No partitioning engines registered in META-INF/services.");
+            }
+            System.out.println("[Partitioners] Registered engines: "
+                    + engines.stream().map(Partitioner::getId).toList());
+            available = Collections.unmodifiableList(engines);
+        }
+        return available;
+    }
+
+    /**
+     * Finds an engine by its identifier.
+     *
+     * @param id Engine identifier (see {@link Partitioner#getId()}).
+     * @return The engine.
+     * @throws IllegalArgumentException if no engine has that identifier.
+     */
+    public static Partitioner byId(String id)
+    {
+        for (Partitioner engine : available())
+        {
+            if (engine.getId().equals(id)) return engine;
+        }
+        throw new IllegalArgumentException("Unknown partitioning engine: " + id);
+    }
+}
@@ -0,0 +1,80 @@
+package graphdivider.model;
+
+/**
+ * Read access to a square sparse matrix with sorted rows, independent of how the rows are stored.
+ * Implemented by the plain {@link CSRmatrix} and the gap-encoded {@link CompressedCSRmatrix}.
+ */
+public interface SparseMatrix
+{
+    /**
+     * Receives the entries of a row in column order.
+     *
+     * @param <E> Checked exception the visitor may throw (e.g. IOException when writing a row out).
+     */
+    @FunctionalInterface
+    interface RowVisitor<E extends Exception>
+    {
+        /**
+         * Visits one stored entry.
+         *
+         * @param col Column index.
+         * @param value Stored value.
+         * @throws E if the visitor fails.
+         */
+        void visit(int col, int value) throws E;
+    }
+
+    /**
+     * Gets the number of rows (and columns).
+     *
+     * @return Matrix size.
+     */
+    int size();
+
+    /**
+     * Gets the number of stored entries.
+     *
+     * @return Number of non-zeros.
+     */
+    int nonZeros();
+
+    /**
+     * Gets the number of stored entries in a row.
+     *
+     * @param row Row index.
+     * @return Number of entries (the degree, for an adjacency matrix).
+     * @throws IndexOutOfBoundsException if row is out of bounds.
+     */
+    int rowLength(int row);
+
+    /**
+     * Gets the value at the specified (row, col) position.
+     *
+     * @param row Row index.
+     * @param col Column index.
+     * @return Value at (row, col), or 0 if not present.
+     * @throws IndexOutOfBoundsException if row is out of bounds or col is negative.
+     */
+    int getValue(int row, int col);
+
+    /**
+     * Passes every stored entry of a row to a visitor, in column order, without copying the row.
+     *
+     * @param row Row index.
+     * @param visitor Visitor called once per entry.
+     * @param <E> Checked exception the visitor may throw.
+     * @throws E if the visitor fails.
+     * @throws IndexOutOfBoundsException if row is out of bounds.
+     */
+    <E extends Exception> void forEachInRow(int row, RowVisitor<E> visitor) throws E;
+
+    /**
+     * Computes y = A * x for vectors stored at offsets inside (possibly shared) arrays.
+     *
+     * @param x Source array.
+     * @param xOffset Offset of the input vector in x.
+     * @param y Destination array.
+     * @param yOffset Offset of the output vector in y (must not overlap the input vector).
+     */
+    void multiply(double[] x, int xOffset, double[] y, int yOffset);
+}
@@ -0,0 +1,65 @@
+package graphdivider.model;
+
+import java.util.List;
+
+/**
+ * Spectral partitioning engine: eigenvectors of the Laplacian, balanced k-means on the spectral
+ * embedding, then boundary refinement within the margin.
+ * The solve goes {@link GraphEigenvalues#GAP_LOOKAHEAD} pairs past p so the result also carries
+ * part count suggestions ({@link EigengapAnalyzer}).
+ */
+public final class SpectralPartitioner implements Partitioner
+{
+    // Maximum number of part counts suggested from the eigengaps
+    static final int SUGGESTIONS = 3;
+
+    /**
+     * Creates the engine (used by {@link java.util.ServiceLoader}).
+     */
+    public SpectralPartitioner() {}
+
+    @Override
+    public String getId()
+    {
+        return "spectral";
+    }
+
+    @Override
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? "Spektralny" : "Spectral";
+    }
+
+    @Override
+    public PartitionResult partition(PartitionRequest request, JobControl job) throws Exception
+    {
+        long start = System.nanoTime();
+        int p = request.parts();
+        SymmetricCSRmatrix laplacian = request.laplacianOrDerived();
+        double[] startVector = request.startVector().build(request.adjacency(), request.model(), p, job);
+        int pairs = GraphEigenvalues.pairsWithLookahead(p, laplacian.size());
+        GraphEigenvalues.EigenResult eigen = GraphEigenvalues.computeSmallestEigenpairs(laplacian, pairs, job, startVector);
+        List<EigengapAnalyzer.Suggestion> suggestions = EigengapAnalyzer.suggest(eigen.eigenvalues, SUGGESTIONS);
+        EigengapAnalyzer.print(suggestions);
+        GraphEigenvalues.EigenResult eigenresult = eigen.leading(p);
+        GraphEigenvalues.printEigenData(eigenresult);
+
+        int[] clusters = GraphClusterization.clusterizeGraph(eigenresult, p, request.adjacency(), request.clustering(),
+                request.vertexWeights(), job);
+        if (clusters == null)
+        {
+            throw new IllegalStateException("Spectral clustering failed.");
+        }
+
+        // Local improvement within the margin
+        int unrefinedEdgesCut = GraphClusterization.calculateEdgesCut(request.adjacency(), clusters);
+        GraphClusterization.refinePartition(request.adjacency(), clusters, p, request.vertexWeights(), request.marginPercent(), job);
+        return PartitionResult.of(getId(), request, clusters, unrefinedEdgesCut, start).withSuggestions(suggestions);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getDisplayName(false);
+    }
+}
@@ -0,0 +1,241 @@
+package graphdivider.model;
+
+/**
+ * Starting-vector strategies for the Laplacian eigen solve.
+ * A start vector close to the Fiedler subspace reduces the number of Lanczos restarts.
+ * All generated vectors are orthogonalized against the constant vector (the trivial eigenvector).
+ */
+public enum StartVector
+{
+    // Let ARPACK pick its own random start
+    RANDOM("Random (ARPACK)", "Losowy (ARPACK)"),
+    // Vertex degrees minus their mean
+    DEGREE("Degree-weighted", "Ważony stopniem"),
+    // Vertex layout (row and column) from the graph file
+    COORDINATES("Layout coordinates", "Współrzędne układu"),
+    // +1/-1 indicator of a coordinate bisection of the layout
+    BISECTION("Coordinate bisection", "Bisekcja współrzędnych"),
+    // Prolonged eigenvectors of a heavy-edge-matching coarse graph
+    COARSE("Coarse solve", "Zgrubne rozwiązanie");
+
+    // Coarsen until the graph has at most this many vertices (per requested eigenpair)
+    private static final int COARSE_VERTICES_PER_PAIR = 20;
+    private static final int MIN_COARSE_VERTICES = 200;
+
+    // Display names for the UI
+    private final String englishName;
+    private final String polishName;
+
+    StartVector(String englishName, String polishName)
+    {
+        this.englishName = englishName;
+        this.polishName = polishName;
+    }
+
+    /**
+     * Gets the display name in the requested language.
+     *
+     * @param polish True for Polish, false for English.
+     * @return Display name.
+     */
+    public String getDisplayName(boolean polish)
+    {
+        return polish ? polishName : englishName;
+    }
+
+    @Override
+    public String toString()
+    {
+        return englishName;
+    }
+
+    /**
+     * Builds the start vector for the Laplacian of the given graph under a job (COARSE runs an eigen solve of its own).
+     *
+     * @param adjacency Symmetric adjacency matrix of the graph (edge weights in values).
+     * @param model Graph model with layout data (used by COORDINATES), may be null.
+     * @param p Number of eigenpairs that will be requested.
+     * @param job Cancellation flag and time budget (shared with the solve that follows).
+     * @return Unit start vector orthogonal to the constant vector, or null to use ARPACK's random start.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public double[] build(CSRmatrix adjacency, GraphModel model, int p, JobControl job)
+    {
+        double[] vector = switch (this)
+        {
+            case RANDOM -> null;
+            case DEGREE -> degreeVector(adjacency);
+            case COORDINATES -> model != null ? coordinateVector(model, adjacency.size()) : null;
+            case BISECTION -> model != null ? bisectionVector(model, adjacency.size()) : null;
+            case COARSE -> coarseVector(adjacency, p, job);
+        };
+        return vector != null ? orthonormalizeAgainstConstant(vector) : null;
+    }
+
+    /**
+     * Weighted degree of each vertex (the Laplacian diagonal).
+     *
+     * @param adjacency Symmetric adjacency matrix.
+     * @return Degree vector.
+     */
+    private static double[] degreeVector(CSRmatrix adjacency)
+    {
+        int n = adjacency.size();
+        int[] rowPtr = adjacency.rowPtr();
+        int[] colInd = adjacency.colInd();
+        int[] values = adjacency.values();
+        double[] vector = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            for (int idx = rowPtr[i]; idx < rowPtr[i + 1]; idx++)
+            {
+                if (colInd[idx] != i) vector[i] += values[idx];
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Sum of the centered row and column coordinates of each vertex.
+     * On mesh-like graphs the low Laplacian modes vary smoothly along the layout axes.
+     *
+     * @param model Graph model with rowPositions and rowStartIndices.
+     * @param n Number of vertices in the Laplacian.
+     * @return Coordinate vector.
+     */
+    private static double[] coordinateVector(GraphModel model, int n)
+    {
+        double[][] coordinates = vertexCoordinates(model, n);
+        double[] vector = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            vector[i] = coordinates[0][i] + coordinates[1][i];
+        }
+        return vector;
+    }
+
+    /**
+     * Builds a +1/-1 indicator of the two halves of a coordinate bisection (see {@link CoordinateBisection}),
+     * a cheap approximation of the sign pattern of the Fiedler vector on mesh-like graphs.
+     *
+     * @param model Graph model with layout data.
+     * @param n Number of vertices.
+     * @return Indicator vector, or null if the graph has fewer than two vertices.
+     */
+    private static double[] bisectionVector(GraphModel model, int n)
+    {
+        if (n < 2) return null;
+        int[] halves = CoordinateBisection.partition(model, n, 2);
+        double[] vector = new double[n];
+        for (int i = 0; i < n; i++) vector[i] = halves[i] == 1 ? 1.0 : -1.0;
+        return vector;
+    }
+
+    /**
+     * Gets the 2D layout of each vertex: x = column (rowPositions), y = row (from rowStartIndices).
+     *
+     * @param model Graph model with layout data.
+     * @param n Number of vertices.
+     * @return Array {x, y} of coordinate arrays of length n.
+     */
+    static double[][] vertexCoordinates(GraphModel model, int n)
+    {
+        int[] rowPositions = model.getRowPositions();
+        int[] rowStartIndices = model.getRowStartIndices();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int r = 0; r < rowStartIndices.length; r++)
+        {
+            int start = rowStartIndices[r];
+            int end = (r + 1 < rowStartIndices.length) ? rowStartIndices[r + 1] : rowPositions.length;
+            for (int i = start; i < Math.min(end, n); i++)
+            {
+                y[i] = r;
+            }
+        }
+        for (int i = 0; i < Math.min(n, rowPositions.length); i++)
+        {
+            x[i] = rowPositions[i];
+        }
+        return new double[][] {x, y};
+    }
+
+    /**
+     * Solves a coarsened problem and prolongs its non-trivial eigenvectors to the fine graph.
+     *
+     * @param adjacency Symmetric adjacency matrix of the fine graph.
+     * @param p Number of eigenpairs that will be requested.
+     * @param job Cancellation flag and time budget.
+     * @return Prolonged vector, or null if the graph is already small or the coarse solve fails.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    private static double[] coarseVector(CSRmatrix adjacency, int p, JobControl job)
+    {
+        int n = adjacency.size();
+        int target = Math.max(MIN_COARSE_VERTICES, COARSE_VERTICES_PER_PAIR * p);
+        if (n <= target) return null;
+
+        // Coarsen until small enough or matching stops making progress
+        int[] weights = null;
+        int[] fineToCoarse = new int[n];
+        for (int i = 0; i < n; i++) fineToCoarse[i] = i;
+        while (adjacency.size() > target)
+        {
+            GraphCoarsening.Level level = GraphCoarsening.coarsen(adjacency, weights);
+            if (level.size() > 0.9 * adjacency.size()) break;
+            for (int i = 0; i < n; i++) fineToCoarse[i] = level.fineToCoarse()[fineToCoarse[i]];
+            adjacency = level.adjacency();
+            weights = level.vertexWeights();
+        }
+
+        SymmetricCSRmatrix coarseLaplacian = SymmetricCSRmatrix.laplacianOf(adjacency);
+        // ARPACK needs fewer pairs than vertices
+        int coarsePairs = Math.min(p, coarseLaplacian.size() - 1);
+        if (coarsePairs < 2) return null;
+        try
+        {
+            GraphEigenvalues.EigenResult coarse = GraphEigenvalues.computeSmallestEigenpairs(coarseLaplacian, coarsePairs, job);
+            // Injection: each fine vertex takes the value of its coarse vertex
+            double[] vector = new double[n];
+            for (int k = 1; k < coarsePairs; k++)
+            {
+                double[] eigenvector = coarse.eigenvectors[k];
+                for (int i = 0; i < n; i++) vector[i] += eigenvector[fineToCoarse[i]];
+            }
+            return vector;
+        }
+        catch (java.util.concurrent.CancellationException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            System.out.println("[StartVector] Coarse start vector failed, using the random start: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Removes the mean (projection onto the constant vector) and normalizes to unit length.
+     *
+     * @param vector Vector to modify in place.
+     * @return The vector, or null if nothing is left after the projection.
+     */
+    static double[] orthonormalizeAgainstConstant(double[] vector)
+    {
+        int n = vector.length;
+        double mean = 0.0;
+        for (double v : vector) mean += v;
+        mean /= n;
+        double norm = 0.0;
+        for (int i = 0; i < n; i++)
+        {
+            vector[i] -= mean;
+            norm += vector[i] * vector[i];
+        }
+        norm = Math.sqrt(norm);
+        if (norm < 1e-12) return null;
+        for (int i = 0; i < n; i++) vector[i] /= norm;
+        return vector;
+    }
+}
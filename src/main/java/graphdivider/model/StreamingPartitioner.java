@@ -0,0 +1,437 @@
+package graphdivider.model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * One-pass streaming partitioner over a .csrrg file (linear deterministic greedy, LDG).
+ * The adjacency line is read group by group (group boundaries come from a second reader positioned
+ * on the pointer line), and every vertex is assigned the first time it appears:
+ * a group head using its already assigned neighbours in the group, a neighbour using the group head.
+ * Part i scores (weight of the edges to assigned neighbours in part i) * (1 - weight_i / capacity); ties and
+ * vertices without assigned neighbours go to the lightest part. When the remaining vertex weight is just enough
+ * to lift every part to the lower bound, only underweight parts are eligible.
+ * <p>
+ * The optional weight lines are honoured (see {@link GraphLoader#loadFromFile}): vertex weights (line 6) are read
+ * before the stream and balance the parts, edge weights (line 7) are streamed alongside the adjacency line by a
+ * third reader and weight the scores and the cut.
+ * <p>
+ * Neither the CSR matrix nor the Laplacian is built: memory is O(V) for the assignment array (and the vertex
+ * weights) only, so graphs larger than the heap's capacity for a CSR matrix are partitioned at disk speed.
+ * Each edge is listed once in the file, so the edge cut is counted exactly while streaming.
+ */
+public final class StreamingPartitioner
+{
+    // Poll the job after this many groups
+    private static final int POLL_INTERVAL = 4096;
+
+    /**
+     * Result of a streaming partition.
+     *
+     * @param clusters Cluster index (1-based) of each vertex.
+     * @param edgesCut Number of edges between different parts.
+     * @param cutWeight Total weight of the edges between different parts (equal to edgesCut without edge weights).
+     * @param partWeights Vertex weight of each part (the number of vertices without vertex weights).
+     */
+    public record Result(int[] clusters, long edgesCut, long cutWeight, long[] partWeights)
+    {
+        /**
+         * Gets the margin of the partition by part weight (see {@link GraphClusterization#calculateMargin}).
+         *
+         * @return Margin as a percentage.
+         */
+        public double margin()
+        {
+            long min = Long.MAX_VALUE;
+            long max = 0;
+            for (long weight : partWeights)
+            {
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            return min > 0 ? ((double) (max - min) / min) * 100.0 : 0.0;
+        }
+    }
+
+    // Prevent instantiation of utility class
+    private StreamingPartitioner() {}
+
+    /**
+     * Partitions the graph in a .csrrg file in one pass.
+     *
+     * @param file Graph file (.csrrg).
+     * @param p Number of parts.
+     * @param marginPercent Allowed margin in percent.
+     * @param job Cancellation flag (the time budget does not apply: a stream cannot stop halfway).
+     * @return Assignment, edge cut and part weights.
+     * @throws IOException if the file cannot be read or is malformed.
+     * @throws IllegalArgumentException if p is not between 2 and the number of vertices.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     */
+    public static Result partition(File file, int p, double marginPercent, JobControl job) throws IOException
+    {
+        try (TokenReader adjacency = new TokenReader(file);
+             TokenReader pointers = new TokenReader(file);
+             TokenReader edgeWeights = openEdgeWeights(file))
+        {
+            // Line 2 has one entry per vertex; lines 1 and 3 are not needed
+            adjacency.skipLine();
+            int n = (int) adjacency.countLine();
+            adjacency.skipLine();
+            for (int i = 0; i < 4; i++) pointers.skipLine();
+            if (p < 2 || p > n)
+            {
+                throw new IllegalArgumentException("Invalid input: n = " + n + ", p = " + p + ". Ensure 2 <= p <= n.");
+            }
+            int[] vertexWeights = readVertexWeights(file, n);
+            long totalWeight = n;
+            if (vertexWeights != null)
+            {
+                totalWeight = 0;
+                for (int weight : vertexWeights) totalWeight += weight;
+            }
+            if (vertexWeights != null || edgeWeights != null)
+            {
+                System.out.println("[StreamingPartitioner] Using " + (vertexWeights != null ? "vertex" : "")
+                        + (vertexWeights != null && edgeWeights != null ? " and " : "")
+                        + (edgeWeights != null ? "edge" : "") + " weights.");
+            }
+
+            // Weight bounds from the margin, as in KWayRefinement
+            double average = (double) totalWeight / p;
+            double e = marginPercent / (200.0 + marginPercent);
+            long lowerBound = (long) Math.min(totalWeight / p, Math.ceil(average * (1.0 - e)));
+            long capacity = (long) Math.max(Math.ceil(average), Math.floor(average * (1.0 + e)));
+
+            int[] label = new int[n]; // 1-based, 0 = not assigned yet
+            long[] partWeights = new long[p];
+            int[] connection = new int[p];
+            int[] group = new int[16];
+            int[] groupWeight = new int[16];
+            long[] state = new long[2]; // {assigned weight, missing weight below the lower bound}
+            state[1] = lowerBound * p;
+            long edgesCut = 0;
+            long cutWeight = 0;
+            long position = 0;
+            long groups = 0;
+
+            long start = pointers.atLineEnd() ? -1 : pointers.nextInt();
+            while (start >= 0)
+            {
+                if (++groups % POLL_INTERVAL == 0) job.checkCancelled();
+                long end = pointers.atLineEnd() ? -1 : pointers.nextInt();
+                if (start != position || (end >= 0 && end <= start))
+                {
+                    throw new IOException("Malformed adjacency pointers near group " + groups + ".");
+                }
+
+                // Read the whole group: head, then its neighbours with their edge weights
+                int size = 0;
+                while (end >= 0 ? position < end : !adjacency.atLineEnd())
+                {
+                    int v = adjacency.nextInt();
+                    position++;
+                    if (v < 0 || v >= n)
+                    {
+                        throw new IOException("Vertex index " + v + " out of range [0, " + n + ").");
+                    }
+                    if (size == group.length)
+                    {
+                        group = Arrays.copyOf(group, 2 * size);
+                        groupWeight = Arrays.copyOf(groupWeight, 2 * size);
+                    }
+                    groupWeight[size] = size > 0 && edgeWeights != null ? nextWeight(edgeWeights, "edge") : 1;
+                    group[size++] = v;
+                }
+                if (size == 0) throw new IOException("Empty adjacency group " + groups + ".");
+
+                int head = group[0];
+                if (label[head] == 0)
+                {
+                    for (int k = 1; k < size; k++)
+                    {
+                        if (label[group[k]] != 0) connection[label[group[k]] - 1] += groupWeight[k];
+                    }
+                    assign(head, vertexWeights, label, partWeights, connection, capacity, lowerBound, totalWeight, state);
+                }
+                for (int k = 1; k < size; k++)
+                {
+                    int v = group[k];
+                    if (label[v] == 0)
+                    {
+                        connection[label[head] - 1] += groupWeight[k];
+                        assign(v, vertexWeights, label, partWeights, connection, capacity, lowerBound, totalWeight, state);
+                    }
+                    if (label[v] != label[head])
+                    {
+                        edgesCut++;
+                        cutWeight += groupWeight[k];
+                    }
+                }
+                start = end;
+            }
+            if (edgeWeights != null && !edgeWeights.atLineEnd())
+            {
+                throw new IOException("More edge weights than neighbour entries in " + file.getName() + ".");
+            }
+
+            // Vertices without any edge
+            for (int v = 0; v < n; v++)
+            {
+                if (label[v] == 0) assign(v, vertexWeights, label, partWeights, connection, capacity, lowerBound, totalWeight, state);
+            }
+
+            System.out.println("[StreamingPartitioner] Streamed " + groups + " groups, " + n + " vertices, edges cut "
+                    + edgesCut + (edgeWeights != null ? " (weight " + cutWeight + ")" : ""));
+            return new Result(label, edgesCut, cutWeight, partWeights);
+        }
+    }
+
+    /**
+     * Reads the vertex weights (line 6) if the file has them.
+     *
+     * @param file Graph file.
+     * @param n Number of vertices.
+     * @return Weight of each vertex, or null if line 6 is missing or empty.
+     * @throws IOException if the count does not match or a weight is not positive.
+     */
+    private static int[] readVertexWeights(File file, int n) throws IOException
+    {
+        try (TokenReader reader = new TokenReader(file))
+        {
+            for (int i = 0; i < 4; i++) reader.skipLine();
+            if (!reader.skipOptionalLine() || reader.atLineEnd()) return null;
+            int[] weights = new int[n];
+            int count = 0;
+            while (!reader.atLineEnd())
+            {
+                if (count == n) throw new IOException("More than " + n + " vertex weights in " + file.getName() + ".");
+                weights[count++] = nextWeight(reader, "vertex");
+            }
+            if (count != n)
+            {
+                throw new IOException("Expected " + n + " vertex weights in " + file.getName() + ", found " + count + ".");
+            }
+            return weights;
+        }
+    }
+
+    /**
+     * Opens a reader positioned on the edge weights (line 7) if the file has them.
+     *
+     * @param file Graph file.
+     * @return Reader on line 7, or null if the line is missing or empty.
+     * @throws IOException if the file cannot be read or has fewer than 5 lines.
+     */
+    private static TokenReader openEdgeWeights(File file) throws IOException
+    {
+        TokenReader reader = new TokenReader(file);
+        try
+        {
+            for (int i = 0; i < 4; i++) reader.skipLine();
+            if (reader.skipOptionalLine() && reader.skipOptionalLine() && !reader.atLineEnd()) return reader;
+        }
+        catch (IOException e)
+        {
+            reader.close();
+            throw e;
+        }
+        reader.close();
+        return null;
+    }
+
+    /**
+     * Reads one weight.
+     *
+     * @param reader Reader on a weight line.
+     * @param kind "vertex" or "edge" (for the error message).
+     * @return Positive weight.
+     * @throws IOException if the line ends or the weight is not positive.
+     */
+    private static int nextWeight(TokenReader reader, String kind) throws IOException
+    {
+        if (reader.atLineEnd()) throw new IOException("Too few " + kind + " weights.");
+        int weight = reader.nextInt();
+        if (weight <= 0) throw new IOException("The " + kind + " weights must be positive, found " + weight + ".");
+        return weight;
+    }
+
+    /**
+     * Assigns v to the part with the best LDG score and clears the connection counts.
+     *
+     * @param v Vertex.
+     * @param vertexWeights Weight of each vertex, or null for unit weights.
+     * @param label Labels (1-based, 0 = unassigned).
+     * @param partWeights Vertex weight per part.
+     * @param connection Weight of the edges from v to assigned neighbours per part (cleared on return).
+     * @param capacity Largest allowed part weight.
+     * @param lowerBound Smallest allowed part weight.
+     * @param totalWeight Total vertex weight.
+     * @param state {assigned weight, missing weight below the lower bound}.
+     */
+    private static void assign(int v, int[] vertexWeights, int[] label, long[] partWeights, int[] connection,
+                               long capacity, long lowerBound, long totalWeight, long[] state)
+    {
+        long w = vertexWeights != null ? vertexWeights[v] : 1;
+        // Once the rest of the stream is needed to fill underweight parts, only those may grow
+        boolean fillOnly = totalWeight - state[0] <= state[1];
+        int best = -1;
+        double bestScore = 0.0;
+        for (int c = 0; c < connection.length; c++)
+        {
+            if (partWeights[c] + w > capacity || (fillOnly && partWeights[c] >= lowerBound)) continue;
+            double score = connection[c] * (1.0 - (double) partWeights[c] / capacity);
+            if (best == -1 || score > bestScore || (score == bestScore && partWeights[c] < partWeights[best]))
+            {
+                best = c;
+                bestScore = score;
+            }
+        }
+        if (best == -1)
+        {
+            // A heavy vertex fits nowhere: it goes to the lightest part
+            best = 0;
+            for (int c = 1; c < partWeights.length; c++)
+            {
+                if (partWeights[c] < partWeights[best]) best = c;
+            }
+        }
+        Arrays.fill(connection, 0);
+
+        label[v] = best + 1;
+        if (partWeights[best] < lowerBound) state[1] -= Math.min(w, lowerBound - partWeights[best]);
+        partWeights[best] += w;
+        state[0] += w;
+    }
+
+    /**
+     * Streams semicolon-separated integers from one line of a file at a time.
+     */
+    private static final class TokenReader implements AutoCloseable
+    {
+        private final BufferedReader reader;
+        // Next character (-2 = not read yet)
+        private int peeked = -2;
+
+        TokenReader(File file) throws IOException
+        {
+            this.reader = new BufferedReader(new FileReader(file), 1 << 16);
+        }
+
+        /**
+         * Skips separators and checks whether the current line has no more numbers.
+         *
+         * @return True at the end of the line or file.
+         * @throws IOException on read errors.
+         */
+        boolean atLineEnd() throws IOException
+        {
+            int c = peek();
+            while (c == ';' || c == ' ' || c == '\r' || c == '\t')
+            {
+                peeked = -2;
+                c = peek();
+            }
+            return c == '\n' || c == -1;
+        }
+
+        /**
+         * Reads the next number of the current line.
+         *
+         * @return Parsed value.
+         * @throws IOException if the line has no more numbers or the token is not a number.
+         */
+        int nextInt() throws IOException
+        {
+            if (atLineEnd()) throw new IOException("Unexpected end of line.");
+            boolean negative = false;
+            if (peek() == '-')
+            {
+                negative = true;
+                peeked = -2;
+            }
+            long value = 0;
+            int digits = 0;
+            int c = peek();
+            while (c >= '0' && c <= '9')
+            {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) throw new IOException("Number out of range.");
+                digits++;
+                peeked = -2;
+                c = peek();
+            }
+            if (digits == 0) throw new IOException("Invalid character '" + (char) c + "' in number list.");
+            return (int) (negative ? -value : value);
+        }
+
+        /**
+         * Counts the numbers left in the current line and moves to the next line.
+         *
+         * @return Number of values.
+         * @throws IOException on read errors.
+         */
+        long countLine() throws IOException
+        {
+            long count = 0;
+            while (!atLineEnd())
+            {
+                nextInt();
+                count++;
+            }
+            skipLine();
+            return count;
+        }
+
+        /**
+         * Skips the rest of the current line, which may be the last one of the file.
+         *
+         * @return True if another line follows.
+         * @throws IOException on read errors.
+         */
+        boolean skipOptionalLine() throws IOException
+        {
+            int c = peek();
+            while (c != '\n' && c != -1)
+            {
+                peeked = -2;
+                c = peek();
+            }
+            if (c == -1) return false;
+            peeked = -2;
+            return peek() != -1;
+        }
+
+        /**
+         * Skips the rest of the current line.
+         *
+         * @throws IOException if the file ends before the line does.
+         */
+        void skipLine() throws IOException
+        {
+            int c = peek();
+            while (c != '\n')
+            {
+                if (c == -1) throw new IOException("File has fewer than 5 lines.");
+                peeked = -2;
+                c = peek();
+            }
+            peeked = -2;
+        }
+
+        private int peek() throws IOException
+        {
+            if (peeked == -2) peeked = reader.read();
+            return peeked;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package graphdivider.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Symmetric sparse matrix stored as its upper triangle (diagonal included) in CSR format.
+ * Every off-diagonal entry of an undirected graph matrix is held once instead of twice, so the
+ * column and value arrays are about half the size of the full {@link CSRmatrix}, and so is the
+ * memory traffic of a matrix-vector product: each stored entry a(i, j) is applied to both row i and row j.
+ * Column indices are ascending within every row and never below the row index.
+ *
+ * @param rowPtr Row pointers array.
+ * @param colInd Column indices array (colInd >= row).
+ * @param values Values array.
+ * @param size Number of rows and columns.
+ */
+public record SymmetricCSRmatrix(int[] rowPtr, int[] colInd, int[] values, int size)
+{
+    // Below this many rows a product runs on the calling thread
+    private static final int PARALLEL_THRESHOLD = 8192;
+    // Rows per work unit when summing the block results
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Keeps the upper triangle of a symmetric matrix.
+     *
+     * @param full Symmetric matrix with sorted rows (adjacency or Laplacian).
+     * @return Half-storage copy of the matrix.
+     * @throws IllegalArgumentException if the matrix has a different number of entries below and above the diagonal
+     *                                  (and so cannot be symmetric).
+     */
+    public static SymmetricCSRmatrix fromFull(CSRmatrix full)
+    {
+        int n = full.size();
+        int[] fullRowPtr = full.rowPtr();
+        int[] fullColInd = full.colInd();
+        int[] fullValues = full.values();
+
+        int[] rowPtr = new int[n + 1];
+        int lower = 0;
+        int diagonal = 0;
+        for (int row = 0; row < n; row++)
+        {
+            // Rows are sorted, so the upper part is the suffix starting at the first column >= row
+            int first = fullRowPtr[row];
+            while (first < fullRowPtr[row + 1] && fullColInd[first] < row) first++;
+            lower += first - fullRowPtr[row];
+            if (first < fullRowPtr[row + 1] && fullColInd[first] == row) diagonal++;
+            rowPtr[row + 1] = rowPtr[row] + fullRowPtr[row + 1] - first;
+        }
+        if (lower != rowPtr[n] - diagonal)
+        {
+            throw new IllegalArgumentException("Matrix is not symmetric: " + lower + " entries below the diagonal, "
+                    + (rowPtr[n] - diagonal) + " above.");
+        }
+
+        int[] colInd = new int[rowPtr[n]];
+        int[] values = new int[rowPtr[n]];
+        for (int row = 0; row < n; row++)
+        {
+            int length = rowPtr[row + 1] - rowPtr[row];
+            int first = fullRowPtr[row + 1] - length;
+            System.arraycopy(fullColInd, first, colInd, rowPtr[row], length);
+            System.arraycopy(fullValues, first, values, rowPtr[row], length);
+        }
+        return new SymmetricCSRmatrix(rowPtr, colInd, values, n);
+    }
+
+    /**
+     * Builds the (weighted) Laplacian L = D - A of a graph directly in half storage.
+     * Each row holds its diagonal entry (the weighted degree) followed by the negated weights of the edges
+     * to higher-numbered vertices; the full Laplacian is never built.
+     *
+     * @param adjacency Symmetric adjacency matrix with sorted rows (edge weights in values, diagonal ignored).
+     * @return Laplacian in half storage.
+     */
+    public static SymmetricCSRmatrix laplacianOf(CSRmatrix adjacency)
+    {
+        int n = adjacency.size();
+        int[] adjRowPtr = adjacency.rowPtr();
+        int[] adjColInd = adjacency.colInd();
+        int[] adjValues = adjacency.values();
+
+        int[] rowPtr = new int[n + 1];
+        for (int row = 0; row < n; row++)
+        {
+            int upper = 0;
+            for (int idx = adjRowPtr[row]; idx < adjRowPtr[row + 1]; idx++)
+            {
+                if (adjColInd[idx] > row) upper++;
+            }
+            rowPtr[row + 1] = rowPtr[row] + 1 + upper;
+        }
+        int[] colInd = new int[rowPtr[n]];
+        int[] values = new int[rowPtr[n]];
+        for (int row = 0; row < n; row++)
+        {
+            int diagonal = rowPtr[row];
+            int fill = diagonal + 1;
+            int degree = 0;
+            for (int idx = adjRowPtr[row]; idx < adjRowPtr[row + 1]; idx++)
+            {
+                int col = adjColInd[idx];
+                if (col == row) continue;
+                degree += adjValues[idx];
+                if (col < row) continue;
+                colInd[fill] = col;
+                values[fill++] = -adjValues[idx];
+            }
+            colInd[diagonal] = row;
+            values[diagonal] = degree;
+        }
+        return new SymmetricCSRmatrix(rowPtr, colInd, values, n);
+    }
+
+    /**
+     * Sets up the scratch space for repeated products with this matrix (see {@link Workspace}).
+     * Large matrices are split into one block of consecutive rows per worker thread; each block gets a
+     * private buffer spanning its rows up to the largest column it touches.
+     *
+     * @return Workspace for {@link #multiply(double[], int, double[], int, Workspace)}.
+     */
+    public Workspace workspace()
+    {
+        int blocks = Math.min(ForkJoinPool.getCommonPoolParallelism(), size / (PARALLEL_THRESHOLD / 2));
+        if (size < PARALLEL_THRESHOLD || blocks < 2) return new Workspace(this, 1, null, null, null);
+
+        int[] blockStart = new int[blocks + 1];
+        int[] blockEnd = new int[blocks];
+        for (int b = 0; b <= blocks; b++) blockStart[b] = (int) ((long) size * b / blocks);
+        double[][] partial = new double[blocks][];
+        IntStream.range(0, blocks).parallel().forEach(b ->
+        {
+            int end = blockStart[b + 1] - 1;
+            for (int row = blockStart[b]; row < blockStart[b + 1]; row++)
+            {
+                if (rowPtr[row + 1] > rowPtr[row]) end = Math.max(end, colInd[rowPtr[row + 1] - 1]);
+            }
+            blockEnd[b] = end;
+            partial[b] = new double[end - blockStart[b] + 1];
+        });
+        return new Workspace(this, blocks, blockStart, blockEnd, partial);
+    }
+
+    /**
+     * Computes y = A * x for vectors stored at offsets inside (possibly shared) arrays.
+     * Sets up a workspace for this one product; repeated products should share one (see {@link #workspace()}).
+     *
+     * @param x Source array.
+     * @param xOffset Offset of the input vector in x.
+     * @param y Destination array.
+     * @param yOffset Offset of the output vector in y (must not overlap the input vector).
+     */
+    public void multiply(double[] x, int xOffset, double[] y, int yOffset)
+    {
+        multiply(x, xOffset, y, yOffset, workspace());
+    }
+
+    /**
+     * Computes y = A * x for vectors stored at offsets inside (possibly shared) arrays, without allocating.
+     * Every block accumulates into its private buffer of the workspace, so the mirrored updates never race;
+     * the buffers are then summed into y in parallel row chunks.
+     * For a well ordered graph (small bandwidth) the buffers are barely larger than the blocks.
+     *
+     * @param x Source array.
+     * @param xOffset Offset of the input vector in x.
+     * @param y Destination array.
+     * @param yOffset Offset of the output vector in y (must not overlap the input vector).
+     * @param workspace Workspace of this matrix, not used by another product at the same time.
+     * @throws IllegalArgumentException if the workspace belongs to another matrix.
+     */
+    public void multiply(double[] x, int xOffset, double[] y, int yOffset, Workspace workspace)
+    {
+        if (workspace.matrix != this)
+        {
+            throw new IllegalArgumentException("Workspace belongs to another matrix.");
+        }
+        int blocks = workspace.blocks;
+        if (blocks < 2)
+        {
+            Arrays.fill(y, yOffset, yOffset + size, 0.0);
+            multiplyRows(0, size, x, xOffset, y, yOffset);
+            return;
+        }
+
+        int[] blockStart = workspace.blockStart;
+        int[] blockEnd = workspace.blockEnd;
+        double[][] partial = workspace.partial;
+        IntStream.range(0, blocks).parallel().forEach(b ->
+        {
+            Arrays.fill(partial[b], 0.0);
+            multiplyRows(blockStart[b], blockStart[b + 1], x, xOffset, partial[b], -blockStart[b]);
+        });
+
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+        {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(size, from + CHUNK_SIZE);
+            Arrays.fill(y, yOffset + from, yOffset + to, 0.0);
+            for (int b = 0; b < blocks && blockStart[b] < to; b++)
+            {
+                double[] buffer = partial[b];
+                int start = Math.max(from, blockStart[b]);
+                int end = Math.min(to - 1, blockEnd[b]);
+                for (int row = start; row <= end; row++) y[yOffset + row] += buffer[row - blockStart[b]];
+            }
+        });
+    }
+
+    /**
+     * Adds the contribution of rows [from, to) to y, applying every off-diagonal entry to both of its rows.
+     *
+     * @param from First row (inclusive).
+     * @param to Last row (exclusive).
+     * @param x Source array.
+     * @param xOffset Offset of the input vector in x.
+     * @param y Destination array (accumulated into).
+     * @param yOffset Offset of row 0 in y (may be negative for a buffer starting at row from).
+     */
+    private void multiplyRows(int from, int to, double[] x, int xOffset, double[] y, int yOffset)
+    {
+        for (int row = from; row < to; row++)
+        {
+            double xRow = x[xOffset + row];
+            double sum = 0.0;
+            for (int idx = rowPtr[row]; idx < rowPtr[row + 1]; idx++)
+            {
+                int col = colInd[idx];
+                double value = values[idx];
+                if (col == row)
+                {
+                    sum += value * xRow;
+                    continue;
+                }
+                sum += value * x[xOffset + col];
+                y[yOffset + col] += value * xRow;
+            }
+            y[yOffset + row] += sum;
+        }
+    }
+
+    /**
+     * Scratch space for repeated products with one matrix, e.g. the iterations of an eigen solve:
+     * the row blocks and their accumulation buffers are set up once instead of on every product.
+     * Not thread-safe; products running at the same time need one workspace each.
+     */
+    public static final class Workspace
+    {
+        // Matrix the blocks were computed for
+        private final SymmetricCSRmatrix matrix;
+        // Number of row blocks (1 = sequential product)
+        private final int blocks;
+        // Rows [blockStart[b], blockStart[b + 1]) write to rows blockStart[b] .. blockEnd[b], buffered in partial[b]
+        private final int[] blockStart;
+        private final int[] blockEnd;
+        private final double[][] partial;
+
+        private Workspace(SymmetricCSRmatrix matrix, int blocks, int[] blockStart, int[] blockEnd, double[][] partial)
+        {
+            this.matrix = matrix;
+            this.blocks = blocks;
+            this.blockStart = blockStart;
+            this.blockEnd = blockEnd;
+            this.partial = partial;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package graphdivider.view;
 import graphdivider.controller.GraphController;
 import graphdivider.view.ui.*;
 import graphdivider.view.ui.MenuBar;
+import graphdivider.model.PartitionMetrics;
 
 import javax.swing.*;
 import java.awt.*;
@@ -249,8 +250,9 @@ public final class Frame extends JFrame
         // Set spinner value to minMargin to ensure it's valid
         getToolPanel().getPartitionMarginSpinner().setValue(minMargin);
 
-        // Set partition panel to unknown after choosing a file
+        // Set partition panel and suggestions to unknown after choosing a file
         getPartitionPanel().setUnknown();
+        getToolPanel().setSuggestions(null);
     }
 
     /**
@@ -263,6 +265,24 @@ public final class Frame extends JFrame
         getToolPanel().setPartitionButtonEnabled(enabled);
         getToolPanel().getPartitionCountSpinner().setEnabled(enabled);
         getToolPanel().getPartitionMarginSpinner().setEnabled(enabled);
+        getToolPanel().getTimeLimitSpinner().setEnabled(enabled);
+        getToolPanel().getRestartsSpinner().setEnabled(enabled);
+        getToolPanel().getSeedSpinner().setEnabled(enabled);
+        getToolPanel().getEngineComboBox().setEnabled(enabled);
+        getToolPanel().getStartVectorComboBox().setEnabled(enabled);
+        getToolPanel().getKMeansModeComboBox().setEnabled(enabled);
+    }
+
+    /**
+     * Updates partition panel with the metrics of a new partition.
+     * Called after partitioning is performed.
+     *
+     * @param metrics Quality metrics of the partition.
+     */
+    public void updatePartitionPanel(PartitionMetrics metrics)
+    {
+        updatePartitionPanel(metrics.edgesCut(), metrics.marginKept());
+        getPartitionPanel().setBoundaryStats(metrics.totalBoundaryVertices(), metrics.communicationVolume(), metrics.maxConductance());
     }
 
     /**
@@ -24,6 +24,7 @@ public final class MenuBar extends JMenuBar
     private final JMenuItem loadPartitionedGraphBinaryMenuItem = new JMenuItem();// Load partitioned binary graph
     private final JMenuItem savePartitionedGraphTextMenuItem = new JMenuItem();  // Save partitioned text graph
     private final JMenuItem savePartitionedGraphBinaryMenuItem = new JMenuItem();// Save partitioned binary graph
+    private final JMenuItem streamPartitionMenuItem = new JMenuItem();           // Stream-partition a graph file
 
     // Theme radio buttons
     private final JRadioButtonMenuItem systemThemeMenuItem = new JRadioButtonMenuItem(); // System theme
@@ -47,6 +48,8 @@ public final class MenuBar extends JMenuBar
         loadMenu.addSeparator();
         loadMenu.add(loadPartitionedGraphTextMenuItem);
         loadMenu.add(loadPartitionedGraphBinaryMenuItem);
+        loadMenu.addSeparator();
+        loadMenu.add(streamPartitionMenuItem);
         add(loadMenu);
 
         // Save menu setup
@@ -115,6 +118,7 @@ public final class MenuBar extends JMenuBar
         loadGraphTextMenuItem.setText(Language.getString("menu.graphText"));
         loadPartitionedGraphTextMenuItem.setText(Language.getString("menu.partitionedGraphText"));
         loadPartitionedGraphBinaryMenuItem.setText(Language.getString("menu.partitionedGraphBinary"));
+        streamPartitionMenuItem.setText(Language.getString("menu.streamPartition"));
 
         savePartitionedGraphTextMenuItem.setText(Language.getString("menu.partitionedGraphText"));
         savePartitionedGraphBinaryMenuItem.setText(Language.getString("menu.partitionedGraphBinary"));
@@ -156,6 +160,15 @@ public final class MenuBar extends JMenuBar
         loadPartitionedGraphBinaryMenuItem.addActionListener(l);
     }
 
+    /**
+     * Register a listener for partitioning a graph file in one streaming pass.
+     * @param l ActionListener to handle the event.
+     */
+    public void addStreamPartitionMenuItemListener(ActionListener l)
+    {
+        streamPartitionMenuItem.addActionListener(l);
+    }
+
     /**
      * Register a listener for saving a partitioned text graph.
      * @param l ActionListener to handle the event.
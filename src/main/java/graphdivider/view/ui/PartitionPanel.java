@@ -15,6 +15,14 @@ public class PartitionPanel extends JPanel
     private final JLabel edgesCutLabel;
     // Label showing margin kept (%)
     private final JLabel marginKeptLabel;
+    // Label showing the edge cut before refinement
+    private final JLabel unrefinedEdgesCutLabel;
+    // Label showing the number of boundary vertices
+    private final JLabel boundaryVerticesLabel;
+    // Label showing the communication volume
+    private final JLabel communicationVolumeLabel;
+    // Label showing the conductance of the worst part
+    private final JLabel maxConductanceLabel;
 
     // Stores the marginKept value for access
     private double marginKept = 0.0;
@@ -37,11 +45,27 @@ public class PartitionPanel extends JPanel
         add(Box.createVerticalGlue());
         edgesCutLabel = new JLabel("Edges cut: 0", SwingConstants.CENTER);
         marginKeptLabel = new JLabel("Margin kept: 0.00", SwingConstants.CENTER);
+        unrefinedEdgesCutLabel = new JLabel("Before refinement: -", SwingConstants.CENTER);
+        boundaryVerticesLabel = new JLabel("Boundary vertices: -", SwingConstants.CENTER);
+        communicationVolumeLabel = new JLabel("Communication volume: -", SwingConstants.CENTER);
+        maxConductanceLabel = new JLabel("Max conductance: -", SwingConstants.CENTER);
         edgesCutLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         marginKeptLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        unrefinedEdgesCutLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        boundaryVerticesLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        communicationVolumeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        maxConductanceLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         add(edgesCutLabel);
         add(Box.createVerticalStrut(10));
         add(marginKeptLabel);
+        add(Box.createVerticalStrut(10));
+        add(unrefinedEdgesCutLabel);
+        add(Box.createVerticalStrut(10));
+        add(boundaryVerticesLabel);
+        add(Box.createVerticalStrut(10));
+        add(communicationVolumeLabel);
+        add(Box.createVerticalStrut(10));
+        add(maxConductanceLabel);
         add(Box.createVerticalGlue());
     }
 
@@ -56,13 +80,41 @@ public class PartitionPanel extends JPanel
     }
 
     /**
-     * Sets both labels to an unknown state (e.g., before partitioning).
+     * Sets the label for the edge cut before refinement.
+     * 
+     * @param unrefinedEdgesCut Edge cut before refinement, or -1 if no refinement was run.
+     */
+    public void setUnrefinedEdgesCut(int unrefinedEdgesCut)
+    {
+        unrefinedEdgesCutLabel.setText("Before refinement: " + (unrefinedEdgesCut >= 0 ? unrefinedEdgesCut : "-"));
+    }
+
+    /**
+     * Sets the labels for boundary vertices, communication volume and the worst part's conductance.
+     * 
+     * @param boundaryVertices Number of vertices with a neighbour in another part.
+     * @param communicationVolume Communication volume of the partition.
+     * @param maxConductance Largest per-part conductance.
+     */
+    public void setBoundaryStats(int boundaryVertices, long communicationVolume, double maxConductance)
+    {
+        boundaryVerticesLabel.setText("Boundary vertices: " + boundaryVertices);
+        communicationVolumeLabel.setText("Communication volume: " + communicationVolume);
+        maxConductanceLabel.setText(String.format("Max conductance: %.4f", maxConductance));
+    }
+
+    /**
+     * Sets all labels to an unknown state (e.g., before partitioning).
      * Resets marginKept to 0.0.
      */
     public void setUnknown()
     {
         edgesCutLabel.setText("Edges cut: -");
         marginKeptLabel.setText("Margin kept: -");
+        unrefinedEdgesCutLabel.setText("Before refinement: -");
+        boundaryVerticesLabel.setText("Boundary vertices: -");
+        communicationVolumeLabel.setText("Communication volume: -");
+        maxConductanceLabel.setText("Max conductance: -");
         this.marginKept = 0.0;
     }
 
@@ -130,6 +182,32 @@ public class PartitionPanel extends JPanel
         }
         marginKeptLabel.setText(marginKeptPrefix + marginKeptValue);
 
+        // Update edges cut before refinement label
+        String unrefinedPrefix = isPolish ? "Przed poprawą: " : "Before refinement: ";
+        String unrefinedText = unrefinedEdgesCutLabel.getText();
+        String unrefinedValue = unrefinedText.endsWith("-")
+                ? unknown
+                : unrefinedText.replaceAll(".*?:\\s*", "");
+        unrefinedEdgesCutLabel.setText(unrefinedPrefix + unrefinedValue);
+
+        // Update boundary statistics labels
+        relabel(boundaryVerticesLabel, isPolish ? "Wierzchołki brzegowe: " : "Boundary vertices: ");
+        relabel(communicationVolumeLabel, isPolish ? "Wolumen komunikacji: " : "Communication volume: ");
+        relabel(maxConductanceLabel, isPolish ? "Maks. przewodność: " : "Max conductance: ");
+
         repaint();
     }
+
+    /**
+     * Replaces the prefix of a "prefix: value" label and keeps its value.
+     * 
+     * @param label Label to update.
+     * @param prefix New prefix including the trailing ": ".
+     */
+    private static void relabel(JLabel label, String prefix)
+    {
+        String text = label.getText();
+        String value = text.endsWith("-") ? "-" : text.replaceAll(".*?:\\s*", "");
+        label.setText(prefix + value);
+    }
 }
\ No newline at end of file
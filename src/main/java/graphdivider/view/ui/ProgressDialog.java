@@ -2,6 +2,7 @@ package graphdivider.view.ui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionListener;
 
 /**
  * Simple progress dialog with an indeterminate progress bar.
@@ -11,6 +12,8 @@ public final class ProgressDialog extends JDialog
 {
     // Progress bar shown in dialog
     private final JProgressBar progressBar;
+    // Cancel button (hidden until a cancel listener is added)
+    private final JButton cancelButton;
 
     /**
      * Constructs a non-modal progress dialog with a title and message.
@@ -41,6 +44,13 @@ public final class ProgressDialog extends JDialog
         // Add progress bar to panel
         panel.add(progressBar, BorderLayout.CENTER);
 
+        // Cancel button at bottom (only shown for cancellable operations)
+        cancelButton = new JButton("Cancel");
+        cancelButton.setVisible(false);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        buttonPanel.add(cancelButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
         // Add panel to dialog
         getContentPane().add(panel);
 
@@ -53,4 +63,21 @@ public final class ProgressDialog extends JDialog
         // Center dialog on parent window
         setLocationRelativeTo(parent);
     }
-}
\ No newline at end of file
+
+    /**
+     * Makes the operation cancellable: shows the cancel button and registers the listener.
+     * The button disables itself after the first click.
+     *
+     * @param listener Listener invoked when the user presses "Cancel".
+     */
+    public void addCancelListener(ActionListener listener)
+    {
+        cancelButton.addActionListener(e ->
+        {
+            cancelButton.setEnabled(false);
+            listener.actionPerformed(e);
+        });
+        cancelButton.setVisible(true);
+        setSize(300, 140);
+    }
+}
@@ -0,0 +1,112 @@
+package graphdivider.view.ui;
+
+import graphdivider.model.PartitionResult;
+import graphdivider.view.Language;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Dialog listing the results of a part-count sweep (edge cut, margin and time for every p).
+ * The selected row can be shown in the graph view (which closes the dialog, since the view holds
+ * one partition per loaded graph) or exported directly.
+ */
+public final class SweepDialog extends JDialog
+{
+    // Sweep results, in table row order
+    private final List<PartitionResult> results;
+    // Table with one row per part count
+    private final JTable table;
+
+    /**
+     * Constructs a non-modal dialog for the given sweep results.
+     *
+     * @param parent The parent window to center the dialog on.
+     * @param results Results ordered by part count.
+     * @param onApply Called with the selected result when the user shows it in the graph view.
+     * @param onExport Called with the selected result when the user exports it.
+     */
+    public SweepDialog(Window parent, List<PartitionResult> results,
+                       Consumer<PartitionResult> onApply, Consumer<PartitionResult> onExport)
+    {
+        super(parent, ModalityType.MODELESS);
+        this.results = results;
+
+        Locale locale = Language.getCurrentLocale();
+        boolean isPolish = locale != null && locale.getLanguage().equals("pl");
+        setTitle(isPolish ? "Przegląd liczby części" : "Part Count Sweep");
+
+        String[] columns = isPolish
+                ? new String[] {"Części", "Krawędzie przecięte", "Margines %", "Wierzchołki brzegowe", "Czas (ms)"}
+                : new String[] {"Parts", "Edges cut", "Margin %", "Boundary vertices", "Time (ms)"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0)
+        {
+            @Override
+            public boolean isCellEditable(int row, int column)
+            {
+                return false;
+            }
+        };
+        for (PartitionResult result : results)
+        {
+            model.addRow(new Object[]
+            {
+                result.metrics().partSizes().length,
+                result.edgesCut(),
+                String.format("%.2f", result.marginKept()),
+                result.metrics().totalBoundaryVertices(),
+                result.elapsedMillis()
+            });
+        }
+        table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        if (!results.isEmpty()) table.setRowSelectionInterval(0, 0);
+
+        // Buttons act on the selected row
+        JButton applyButton = new JButton(isPolish ? "Pokaż wybrany" : "Show selected");
+        JButton exportButton = new JButton(isPolish ? "Eksportuj wybrany..." : "Export selected...");
+        JButton closeButton = new JButton(isPolish ? "Zamknij" : "Close");
+        applyButton.addActionListener(e ->
+        {
+            PartitionResult selected = getSelectedResult();
+            if (selected == null) return;
+            dispose();
+            onApply.accept(selected);
+        });
+        exportButton.addActionListener(e ->
+        {
+            PartitionResult selected = getSelectedResult();
+            if (selected != null) onExport.accept(selected);
+        });
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(applyButton);
+        buttonPanel.add(exportButton);
+        buttonPanel.add(closeButton);
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        getContentPane().add(panel);
+
+        setSize(560, 360);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Gets the result in the selected row.
+     *
+     * @return Selected result, or null if no row is selected.
+     */
+    public PartitionResult getSelectedResult()
+    {
+        int row = table.getSelectedRow();
+        return row >= 0 ? results.get(table.convertRowIndexToModel(row)) : null;
+    }
+}
@@ -1,11 +1,17 @@
 package graphdivider.view.ui;
 
+import graphdivider.model.EigengapAnalyzer;
+import graphdivider.model.KMeansMode;
+import graphdivider.model.Partitioner;
+import graphdivider.model.Partitioners;
+import graphdivider.model.StartVector;
 import graphdivider.view.Language;
 import java.util.Locale;
 import javax.swing.*;
 import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.util.List;
 
 /**
  * Panel with controls for partitioning a graph.
@@ -17,12 +23,44 @@ public final class ToolPanel extends JPanel
     private final JSpinner partitionCountSpinner;
     // Spinner for selecting margin percentage
     private final JSpinner partitionMarginSpinner;
+    // Spinner for selecting the time limit in seconds (0 = no limit)
+    private final JSpinner timeLimitSpinner;
+    // Spinner for selecting the number of k-means restarts
+    private final JSpinner restartsSpinner;
+    // Spinner for selecting the random seed
+    private final JSpinner seedSpinner;
+    // Combo box for selecting the partitioning engine
+    private final JComboBox<Partitioner> engineComboBox;
+    // Combo box for selecting the eigen solver start vector
+    private final JComboBox<StartVector> startVectorComboBox;
+    // Combo box for selecting the k-means variant
+    private final JComboBox<KMeansMode> kMeansModeComboBox;
     // Button to trigger graph partitioning
     private final JButton partitionButton;
+    // Button to partition for every part count from 2 to the selected one
+    private final JButton sweepButton;
     // Label for partition count spinner
     private final JLabel partitionCountLabel;
     // Label for margin spinner
     private final JLabel partitionMarginLabel;
+    // Label for time limit spinner
+    private final JLabel timeLimitLabel;
+    // Label for restarts spinner
+    private final JLabel restartsLabel;
+    // Label for seed spinner
+    private final JLabel seedLabel;
+    // Label for engine combo box
+    private final JLabel engineLabel;
+    // Label for start vector combo box
+    private final JLabel startVectorLabel;
+    // Label for k-means mode combo box
+    private final JLabel kMeansModeLabel;
+    // Button to partition into nodes, then each node into cores
+    private final JButton hierarchicalButton;
+    // Label with the part counts suggested by the last eigen solve
+    private final JLabel suggestionLabel;
+    // Suggestions shown in the label (null until a spectral solve ran for the loaded graph)
+    private List<EigengapAnalyzer.Suggestion> suggestions = null;
 
     /**
      * Constructs the ToolPanel and initializes all UI components.
@@ -40,7 +78,7 @@ public final class ToolPanel extends JPanel
         setMaximumSize(new Dimension(fixedWidth, Integer.MAX_VALUE));
 
         GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 5, 10, 5);
+        gbc.insets = new Insets(6, 5, 6, 5);
         gbc.anchor = GridBagConstraints.WEST;
 
         // Row 0: Number of partitions
@@ -61,14 +99,103 @@ public final class ToolPanel extends JPanel
         partitionMarginSpinner = createSpinner(10, 10, 999, 1, false);
         add(partitionMarginSpinner, gbc);
 
-        // Row 2: Partition Graph button
-        gbc.gridx = 0; 
+        // Row 2: Time limit (s)
+        gbc.gridx = 0;
         gbc.gridy = 2;
+        timeLimitLabel = new JLabel("Time limit (s):");
+        add(timeLimitLabel, gbc);
+        gbc.gridx = 1;
+        timeLimitSpinner = createSpinner(0, 0, 3600, 1, false);
+        timeLimitSpinner.setToolTipText("0 = no limit");
+        add(timeLimitSpinner, gbc);
+
+        // Row 3: K-means restarts
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        restartsLabel = new JLabel("Restarts:");
+        add(restartsLabel, gbc);
+        gbc.gridx = 1;
+        restartsSpinner = createSpinner(4, 1, 32, 1, false);
+        add(restartsSpinner, gbc);
+
+        // Row 4: Random seed
+        gbc.gridx = 0;
+        gbc.gridy = 4;
+        seedLabel = new JLabel("Seed:");
+        add(seedLabel, gbc);
+        gbc.gridx = 1;
+        seedSpinner = createSpinner(0, 0, Integer.MAX_VALUE, 1, false);
+        add(seedSpinner, gbc);
+
+        // Rows 5-6: Partitioning engine (label above full-width combo box)
+        gbc.gridx = 0;
+        gbc.gridy = 5;
+        gbc.gridwidth = 2;
+        gbc.insets = new Insets(6, 5, 0, 5);
+        engineLabel = new JLabel("Engine:");
+        add(engineLabel, gbc);
+        gbc.gridy = 6;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(4, 5, 6, 5);
+        // Engines registered through ServiceLoader
+        engineComboBox = new JComboBox<>(Partitioners.available().toArray(new Partitioner[0]));
+        engineComboBox.setEnabled(false);
+        add(engineComboBox, gbc);
+
+        // Rows 7-8: Start vector strategy (label above full-width combo box)
+        gbc.gridy = 7;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.insets = new Insets(6, 5, 0, 5);
+        startVectorLabel = new JLabel("Start vector:");
+        add(startVectorLabel, gbc);
+        gbc.gridy = 8;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(4, 5, 6, 5);
+        startVectorComboBox = new JComboBox<>(StartVector.values());
+        startVectorComboBox.setEnabled(false);
+        add(startVectorComboBox, gbc);
+
+        // Rows 9-10: K-means mode (label above full-width combo box)
+        gbc.gridy = 9;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.insets = new Insets(6, 5, 0, 5);
+        kMeansModeLabel = new JLabel("K-means:");
+        add(kMeansModeLabel, gbc);
+        gbc.gridy = 10;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(4, 5, 6, 5);
+        kMeansModeComboBox = new JComboBox<>(KMeansMode.values());
+        kMeansModeComboBox.setSelectedItem(KMeansMode.HAMERLY);
+        kMeansModeComboBox.setEnabled(false);
+        add(kMeansModeComboBox, gbc);
+        gbc.insets = new Insets(6, 5, 6, 5);
+
+        // Row 11: Partition Graph button
+        gbc.gridx = 0; 
+        gbc.gridy = 11;
         gbc.gridwidth = 2;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         partitionButton = new JButton("Divide Graph");
         partitionButton.setEnabled(false);
         add(partitionButton, gbc);
+
+        // Row 12: Part count sweep button
+        gbc.gridy = 12;
+        sweepButton = new JButton("Sweep 2..p");
+        sweepButton.setEnabled(false);
+        add(sweepButton, gbc);
+
+        // Row 13: Two-level (nodes x cores) partition button
+        gbc.gridy = 13;
+        hierarchicalButton = new JButton("Nodes x Cores...");
+        hierarchicalButton.setEnabled(false);
+        add(hierarchicalButton, gbc);
+
+        // Row 14: Part counts suggested from the eigengaps
+        gbc.gridy = 14;
+        suggestionLabel = new JLabel();
+        add(suggestionLabel, gbc);
+        setSuggestions(null);
     }
 
     /**
@@ -119,6 +246,26 @@ public final class ToolPanel extends JPanel
         partitionButton.addActionListener(listener);
     }
 
+    /**
+     * Adds an ActionListener to the sweep button.
+     * 
+     * @param listener Listener to add.
+     */
+    public void addSweepButtonActionListener(ActionListener listener)
+    {
+        sweepButton.addActionListener(listener);
+    }
+
+    /**
+     * Adds an ActionListener to the nodes x cores button.
+     * 
+     * @param listener Listener to add.
+     */
+    public void addHierarchicalButtonActionListener(ActionListener listener)
+    {
+        hierarchicalButton.addActionListener(listener);
+    }
+
     /**
      * Gets the current number of partitions from the spinner.
      * 
@@ -140,13 +287,166 @@ public final class ToolPanel extends JPanel
     }
 
     /**
-     * Enables or disables the partition button.
+     * Gets the current time limit from the spinner.
+     * 
+     * @return Time limit in seconds (0 means no limit).
+     */
+    public int getTimeLimitSeconds()
+    {
+        return (Integer) timeLimitSpinner.getValue();
+    }
+
+    /**
+     * Gets the number of k-means restarts from the spinner.
+     * 
+     * @return Number of restarts.
+     */
+    public int getRestarts()
+    {
+        return (Integer) restartsSpinner.getValue();
+    }
+
+    /**
+     * Gets the random seed from the spinner.
+     * 
+     * @return Random seed.
+     */
+    public int getSeed()
+    {
+        return (Integer) seedSpinner.getValue();
+    }
+
+    /**
+     * Gets the spinner for k-means restarts (for external control).
+     * 
+     * @return JSpinner for restarts.
+     */
+    public JSpinner getRestartsSpinner()
+    {
+        return restartsSpinner;
+    }
+
+    /**
+     * Gets the spinner for the random seed (for external control).
+     * 
+     * @return JSpinner for the seed.
+     */
+    public JSpinner getSeedSpinner()
+    {
+        return seedSpinner;
+    }
+
+    /**
+     * Gets the selected partitioning engine.
+     * 
+     * @return Selected Partitioner.
+     */
+    public Partitioner getEngine()
+    {
+        return (Partitioner) engineComboBox.getSelectedItem();
+    }
+
+    /**
+     * Gets the engine combo box (for external control).
+     * 
+     * @return JComboBox with partitioning engines.
+     */
+    public JComboBox<Partitioner> getEngineComboBox()
+    {
+        return engineComboBox;
+    }
+
+    /**
+     * Gets the selected start vector strategy for the eigen solver.
+     * 
+     * @return Selected StartVector.
+     */
+    public StartVector getStartVector()
+    {
+        return (StartVector) startVectorComboBox.getSelectedItem();
+    }
+
+    /**
+     * Gets the start vector combo box (for external control).
+     * 
+     * @return JComboBox with start vector strategies.
+     */
+    public JComboBox<StartVector> getStartVectorComboBox()
+    {
+        return startVectorComboBox;
+    }
+
+    /**
+     * Gets the selected k-means variant.
+     * 
+     * @return Selected KMeansMode.
+     */
+    public KMeansMode getKMeansMode()
+    {
+        return (KMeansMode) kMeansModeComboBox.getSelectedItem();
+    }
+
+    /**
+     * Gets the k-means mode combo box (for external control).
+     * 
+     * @return JComboBox with k-means variants.
+     */
+    public JComboBox<KMeansMode> getKMeansModeComboBox()
+    {
+        return kMeansModeComboBox;
+    }
+
+    /**
+     * Enables or disables the partition, sweep and nodes x cores buttons.
      * 
      * @param enabled True to enable, false to disable.
      */
     public void setPartitionButtonEnabled(boolean enabled)
     {
         partitionButton.setEnabled(enabled);
+        sweepButton.setEnabled(enabled);
+        hierarchicalButton.setEnabled(enabled);
+    }
+
+    /**
+     * Shows the part counts suggested from the eigengaps (see {@link EigengapAnalyzer}).
+     * 
+     * @param suggestions Suggestions, best first; empty if the spectrum has no clear gap,
+     *                    null if no spectral solve ran for the loaded graph.
+     */
+    public void setSuggestions(List<EigengapAnalyzer.Suggestion> suggestions)
+    {
+        this.suggestions = suggestions;
+        Locale locale = Language.getCurrentLocale();
+        boolean isPolish = locale != null && locale.getLanguage().equals("pl");
+        String parts;
+        if (suggestions == null) parts = "-";
+        else if (suggestions.isEmpty()) parts = isPolish ? "brak" : "none";
+        else
+        {
+            StringBuilder text = new StringBuilder();
+            for (EigengapAnalyzer.Suggestion suggestion : suggestions)
+            {
+                if (text.length() > 0) text.append(", ");
+                text.append(suggestion.parts());
+            }
+            parts = text.toString();
+        }
+        suggestionLabel.setText((isPolish ? "Sugerowane części: " : "Suggested parts: ") + parts);
+
+        StringBuilder tooltip = new StringBuilder("<html>");
+        tooltip.append(isPolish
+                ? "Liczby części z największą przerwą spektralną (z ostatniego podziału spektralnego)"
+                : "Part counts with the largest eigengaps (from the last spectral partition)");
+        if (suggestions != null)
+        {
+            for (EigengapAnalyzer.Suggestion suggestion : suggestions)
+            {
+                tooltip.append(String.format("<br>p = %d: %s %.2f", suggestion.parts(),
+                        isPolish ? "wynik" : "score", suggestion.score()));
+            }
+        }
+        suggestionLabel.setToolTipText(tooltip.append("</html>").toString());
     }
 
     /**
@@ -203,6 +503,16 @@ public final class ToolPanel extends JPanel
         return partitionMarginSpinner;
     }
 
+    /**
+     * Gets the spinner for time limit (for external control).
+     * 
+     * @return JSpinner for time limit in seconds.
+     */
+    public JSpinner getTimeLimitSpinner()
+    {
+        return timeLimitSpinner;
+    }
+
     /**
      * Updates panel texts based on the current language.
      * Uses Polish if set, otherwise English.
@@ -214,7 +524,38 @@ public final class ToolPanel extends JPanel
         ((javax.swing.border.TitledBorder) getBorder()).setTitle(isPolish ? "Ustawienia podziału" : "Partition Settings");
         partitionCountLabel.setText(isPolish ? "Liczba części:" : "Number of parts:");
         partitionMarginLabel.setText(isPolish ? "Margines %:" : "Margin %:");
+        timeLimitLabel.setText(isPolish ? "Limit czasu (s):" : "Time limit (s):");
+        timeLimitSpinner.setToolTipText(isPolish ? "0 = bez limitu" : "0 = no limit");
+        restartsLabel.setText(isPolish ? "Restarty:" : "Restarts:");
+        seedLabel.setText(isPolish ? "Ziarno:" : "Seed:");
+        engineLabel.setText(isPolish ? "Metoda:" : "Engine:");
+        startVectorLabel.setText(isPolish ? "Wektor startowy:" : "Start vector:");
+        kMeansModeLabel.setText(isPolish ? "K-średnie:" : "K-means:");
+        DefaultListCellRenderer renderer = new DefaultListCellRenderer()
+        {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus)
+            {
+                Object text = value;
+                if (value instanceof Partitioner) text = ((Partitioner) value).getDisplayName(isPolish);
+                else if (value instanceof StartVector) text = ((StartVector) value).getDisplayName(isPolish);
+                else if (value instanceof KMeansMode) text = ((KMeansMode) value).getDisplayName(isPolish);
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        };
+        engineComboBox.setRenderer(renderer);
+        startVectorComboBox.setRenderer(renderer);
+        kMeansModeComboBox.setRenderer(renderer);
         partitionButton.setText(isPolish ? "Podziel graf" : "Divide Graph");
+        sweepButton.setText(isPolish ? "Przegląd 2..p" : "Sweep 2..p");
+        hierarchicalButton.setText(isPolish ? "Węzły x rdzenie..." : "Nodes x Cores...");
+        hierarchicalButton.setToolTipText(isPolish
+                ? "Podział na węzły, a następnie każdego węzła na rdzenie (wybraną metodą)"
+                : "Partition into nodes, then each node into cores (with the selected engine)");
+        setSuggestions(suggestions);
+        sweepButton.setToolTipText(isPolish
+                ? "Podział spektralny dla każdej liczby części od 2 do wybranej (jedno rozwiązanie własne)"
+                : "Spectral partition for every part count from 2 to the selected one (one eigen solve)");
         repaint();
     }
 }
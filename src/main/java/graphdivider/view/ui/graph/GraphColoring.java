@@ -82,34 +82,6 @@ public final class GraphColoring
         return cutEdges[0];
     }
 
-    /**
-     * Counts the number of edges between different clusters (does not remove them).
-     * 
-     * @param vertices Array of Vertex objects.
-     * @param clusters Array of cluster indices for each vertex.
-     * @param edges List of edges to check.
-     * @return Number of edges that connect different clusters.
-     * @throws IllegalArgumentException if input arrays are null or of different lengths.
-     */
-    public static int calculateEdgesCut(Vertex[] vertices, int[] clusters, List<Edge> edges)
-    {
-        if (vertices == null || clusters == null || vertices.length != clusters.length)
-        {
-            throw new IllegalArgumentException("Vertices and clusters must be non-null and of the same length.");
-        }
-        int cutEdges = 0;
-        for (Edge edge : edges)
-        {
-            int cluster1 = clusters[edge.getVertex1().getId()];
-            int cluster2 = clusters[edge.getVertex2().getId()];
-            if (cluster1 != cluster2)
-            {
-                cutEdges++;
-            }
-        }
-        return cutEdges;
-    }
-
     /**
      * Generates a color for each unique cluster index.
      * Colors are spread using HSB for visual distinction.